@@ -37,6 +37,24 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                // Golden images live in the test resources; -PrecordGoldens=true rewrites them from the current output.
+                it.systemProperty("colorpicker.goldenDir", file("src/test/resources/golden").absolutePath)
+                it.systemProperty("colorpicker.recordGoldens", project.findProperty("recordGoldens") ?: "false")
+                // *Benchmark classes time code instead of testing it, so they never gate the build; -Pbenchmarks=true
+                // runs them on their own.
+                if (project.findProperty("benchmarks") == "true") {
+                    it.include("**/*Benchmark*.class")
+                } else {
+                    it.exclude("**/*Benchmark*.class")
+                }
+            }
+        }
+    }
 }
 
 dependencies {
@@ -46,7 +64,9 @@ dependencies {
     implementation(libs.material)
     implementation(libs.androidx.activity)
     implementation(libs.androidx.constraintlayout)
+    implementation(libs.kotlinx.coroutines.android)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
 }
\ No newline at end of file
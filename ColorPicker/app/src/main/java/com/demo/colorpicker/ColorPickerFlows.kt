@@ -0,0 +1,25 @@
+package com.demo.colorpicker
+
+import com.demo.colorpicker.lib.ColorChangeStream
+import com.demo.colorpicker.lib.ColorPickerView
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import java.util.concurrent.Executor
+
+/**
+ * Color changes of this picker as a cold [Flow]; collecting subscribes and cancelling unsubscribes. The flow completes
+ * when the picker is [unbound][ColorPickerView.unbind], so a recycled picker never feeds a previous row's collector.
+ *
+ * Events are handed to the flow's channel straight from the touch path without suspending, so a slow collector
+ * only ever sees what the [policy] lets through: the latest value for conflating policies, every value otherwise.
+ */
+fun ColorPickerView.colorChanges(
+    policy: ColorChangeStream.Policy = ColorChangeStream.Policy.latest()
+): Flow<Int> = callbackFlow {
+    val subscription = subscribe(Executor { it.run() }, policy) { trySend(it) }
+    subscription.setOnEndListener { channel.close() }
+    awaitClose { subscription.unsubscribe() }
+}.buffer(if (policy.isConflating) Channel.CONFLATED else Channel.UNLIMITED)
@@ -0,0 +1,320 @@
+package com.demo.colorpicker.lib;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans color changes out to any number of subscribers, each on its own executor.
+ * Publishing only stores the new value and hands a task to the executor when none is pending, so a slow subscriber
+ * never blocks touch handling; how the events that pile up in the meantime are treated is up to its {@link Policy}.
+ */
+public final class ColorChangeStream {
+
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    private volatile Subscriber[] subscribers = NO_SUBSCRIBERS;
+
+    public Subscription subscribe(Executor executor, Policy policy, ColorPickerView.OnColorChangedListener listener) {
+        if (executor == null || policy == null || listener == null) {
+            throw new NullPointerException("executor, policy and listener must not be null");
+        }
+
+        Subscriber subscriber = new Subscriber(this, executor, policy, listener);
+
+        synchronized (this) {
+            Subscriber[] current = subscribers;
+            Subscriber[] next = new Subscriber[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = subscriber;
+            subscribers = next;
+        }
+
+        return subscriber;
+    }
+
+    public boolean hasSubscribers() {
+        return subscribers.length > 0;
+    }
+
+    /**
+     * Ends every subscription, as if each had been unsubscribed by its owner.
+     */
+    void unsubscribeAll() {
+        Subscriber[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            current[i].unsubscribe();
+        }
+    }
+
+    void publish(int color) {
+        Subscriber[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            current[i].offer(color);
+        }
+    }
+
+    private synchronized void remove(Subscriber subscriber) {
+        Subscriber[] current = subscribers;
+        int index = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscriber) {
+                index = i;
+                break;
+            }
+        }
+
+        if (index < 0) {
+            return;
+        }
+
+        if (current.length == 1) {
+            subscribers = NO_SUBSCRIBERS;
+            return;
+        }
+
+        Subscriber[] next = new Subscriber[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        subscribers = next;
+    }
+
+    public interface Subscription {
+
+        void unsubscribe();
+
+        /**
+         * Runs {@code listener} once the subscription ends, right away if it already has. A subscription ends when it
+         * is unsubscribed, or for one made through a picker, when the picker is {@link ColorPickerView#unbind()
+         * unbound}.
+         */
+        void setOnEndListener(Runnable listener);
+    }
+
+    /**
+     * How events are conflated while a subscriber's previous delivery is still pending.
+     */
+    public static final class Policy {
+
+        private static final int EVERY = 0;
+        private static final int LATEST = 1;
+        private static final int SAMPLED = 2;
+
+        private static final Policy EVERY_EVENT = new Policy(EVERY, 0);
+        private static final Policy LATEST_ONLY = new Policy(LATEST, 0);
+
+        private final int mode;
+        private final long intervalNanos;
+
+        private Policy(int mode, long intervalNanos) {
+            this.mode = mode;
+            this.intervalNanos = intervalNanos;
+        }
+
+        /**
+         * Every published color is delivered in order. Pending events are queued without bound.
+         */
+        public static Policy every() {
+            return EVERY_EVENT;
+        }
+
+        /**
+         * Only the most recent color is delivered once the subscriber's executor gets to it.
+         */
+        public static Policy latest() {
+            return LATEST_ONLY;
+        }
+
+        /**
+         * The latest color at most once per interval; the first change is delivered immediately and the final one is
+         * never dropped.
+         */
+        public static Policy sampled(long interval, TimeUnit unit) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            return new Policy(SAMPLED, unit.toNanos(interval));
+        }
+
+        public boolean isConflating() {
+            return mode != EVERY;
+        }
+    }
+
+    private static final class Subscriber implements Subscription, Runnable {
+
+        private final ColorChangeStream stream;
+        private final Executor executor;
+        private final Policy policy;
+        private final ColorPickerView.OnColorChangedListener listener;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final AtomicInteger latest = new AtomicInteger();
+
+        private volatile boolean active = true;
+        private Runnable onEnd;
+
+        // Policy.every() queue, guarded by this subscriber.
+        private int[] queue;
+        private int queueHead;
+        private int queueSize;
+
+        // Policy.sampled(), only touched from run(); the scheduled flag keeps runs from overlapping.
+        private long lastDeliveryNanos;
+        private boolean delivered;
+        private final Runnable resubmit = new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(Subscriber.this);
+            }
+        };
+
+        Subscriber(ColorChangeStream stream, Executor executor, Policy policy,
+                   ColorPickerView.OnColorChangedListener listener) {
+            this.stream = stream;
+            this.executor = executor;
+            this.policy = policy;
+            this.listener = listener;
+
+            if (policy.mode == Policy.EVERY) {
+                queue = new int[16];
+            }
+        }
+
+        void offer(int color) {
+            if (!active) {
+                return;
+            }
+
+            if (policy.mode == Policy.EVERY) {
+                synchronized (this) {
+                    enqueue(color);
+                }
+            } else {
+                latest.set(color);
+                dirty.set(true);
+            }
+
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (policy.mode == Policy.EVERY) {
+                drainQueue();
+                return;
+            }
+
+            do {
+                if (policy.mode == Policy.SAMPLED) {
+                    long now = System.nanoTime();
+                    long wait = lastDeliveryNanos + policy.intervalNanos - now;
+
+                    if (delivered && wait > 0) {
+                        Sampler.INSTANCE.schedule(resubmit, wait, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+
+                    lastDeliveryNanos = now;
+                    delivered = true;
+                }
+
+                dirty.set(false);
+                deliver(latest.get());
+                scheduled.set(false);
+
+                // A color published while we were delivering could not schedule us, so pick it up here.
+            } while (dirty.get() && scheduled.compareAndSet(false, true));
+        }
+
+        @Override
+        public void unsubscribe() {
+            Runnable listener;
+            synchronized (this) {
+                if (!active) {
+                    return;
+                }
+                active = false;
+                listener = onEnd;
+            }
+
+            stream.remove(this);
+            if (listener != null) {
+                listener.run();
+            }
+        }
+
+        @Override
+        public void setOnEndListener(Runnable listener) {
+            boolean ended;
+            synchronized (this) {
+                onEnd = listener;
+                ended = !active;
+            }
+
+            if (ended && listener != null) {
+                listener.run();
+            }
+        }
+
+        private void drainQueue() {
+            while (true) {
+                int color;
+
+                synchronized (this) {
+                    if (queueSize == 0) {
+                        scheduled.set(false);
+                        return;
+                    }
+
+                    color = queue[queueHead];
+                    queueHead = (queueHead + 1) % queue.length;
+                    queueSize--;
+                }
+
+                deliver(color);
+            }
+        }
+
+        private void enqueue(int color) {
+            if (queueSize == queue.length) {
+                int[] grown = new int[queue.length * 2];
+                for (int i = 0; i < queueSize; i++) {
+                    grown[i] = queue[(queueHead + i) % queue.length];
+                }
+                queue = grown;
+                queueHead = 0;
+            }
+
+            queue[(queueHead + queueSize) % queue.length] = color;
+            queueSize++;
+        }
+
+        private void deliver(int color) {
+            if (active) {
+                listener.onColorChanged(color);
+            }
+        }
+    }
+
+    private static final class Sampler {
+
+        static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "ColorChangeStream-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
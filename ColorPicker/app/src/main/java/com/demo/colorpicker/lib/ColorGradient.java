@@ -0,0 +1,267 @@
+package com.demo.colorpicker.lib;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A multi-stop gradient between picked colors, sampled in bulk into int[] or IntBuffer ARGB arrays.
+ * <p>
+ * Stops are converted into the interpolation space once, when the gradient is created, so filling only does the
+ * per-sample blend and the conversion back to sRGB, without allocating. Large fills are split over the common
+ * fork/join pool. Alpha is always interpolated linearly. Instances are immutable and may be shared between threads.
+ */
+public final class ColorGradient {
+
+    public enum Interpolation {
+        /** Straight blend of the gamma encoded channels, like {@link android.graphics.LinearGradient}. */
+        SRGB,
+        /** Blend of linear light, which keeps mixes of saturated colors from getting muddy. */
+        LINEAR_RGB,
+        /** Blend of hue, saturation and value, going around the shorter arc of the hue circle. */
+        HSV,
+        /** Blend in OKLab, perceptually even steps. */
+        OKLAB
+    }
+
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int PARALLEL_CHUNK = 1 << 14;
+
+    private final Interpolation interpolation;
+    private final float[] positions;
+
+    // Per stop: alpha followed by the three components in the interpolation space.
+    private final float[] components;
+
+    /**
+     * @param colors        the colors of the stops, at least two
+     * @param positions     increasing stop positions in [0, 1], or null to space the stops evenly
+     * @param interpolation the space the colors are blended in
+     */
+    public ColorGradient(int[] colors, float[] positions, Interpolation interpolation) {
+        if (colors == null || colors.length < 2) {
+            throw new IllegalArgumentException("A gradient needs at least two colors");
+        }
+        if (positions != null && positions.length != colors.length) {
+            throw new IllegalArgumentException("colors and positions must have the same length");
+        }
+        if (interpolation == null) {
+            throw new NullPointerException("interpolation must not be null");
+        }
+
+        this.interpolation = interpolation;
+        this.positions = new float[colors.length];
+        this.components = new float[colors.length * 4];
+
+        for (int i = 0; i < colors.length; i++) {
+            float position = positions == null ? (float) i / (colors.length - 1) : positions[i];
+
+            if (position < 0f || position > 1f || (i > 0 && position < this.positions[i - 1])) {
+                throw new IllegalArgumentException("positions must be increasing and within [0, 1]");
+            }
+
+            this.positions[i] = position;
+            toComponents(colors[i], i * 4);
+        }
+
+        if (interpolation == Interpolation.HSV) {
+            unwrapHues();
+        }
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    /**
+     * Returns the color at {@code t}, clamped to [0, 1].
+     */
+    public int colorAt(float t) {
+        t = Math.max(0f, Math.min(1f, t));
+        return sample(t, segmentFor(t), new float[3]);
+    }
+
+    /**
+     * Fills {@code count} evenly spaced samples from 0 to 1, both included, into {@code out} starting at
+     * {@code offset}.
+     */
+    public void fill(int[] out, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > out.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", count " + count + ", length " + out.length);
+        }
+
+        if (count >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new FillTask(out, offset, 0, count, count));
+        } else {
+            fillRange(out, offset, 0, count, count);
+        }
+    }
+
+    /**
+     * Fills the remaining space of {@code out} with evenly spaced samples and advances its position.
+     */
+    public void fill(IntBuffer out) {
+        int count = out.remaining();
+
+        if (out.hasArray()) {
+            fill(out.array(), out.arrayOffset() + out.position(), count);
+            out.position(out.position() + count);
+            return;
+        }
+
+        int[] chunk = new int[Math.min(count, 4096)];
+        for (int start = 0; start < count; start += chunk.length) {
+            int length = Math.min(chunk.length, count - start);
+            fillRange(chunk, -start, start, start + length, count);
+            out.put(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Writes samples {@code from} (inclusive) to {@code to} (exclusive) out of {@code count} to
+     * {@code out[offset + index]}.
+     */
+    void fillRange(int[] out, int offset, int from, int to, int count) {
+        final float[] scratch = new float[3];
+        final float step = count > 1 ? 1f / (count - 1) : 0f;
+
+        int segment = segmentFor(from * step);
+
+        for (int i = from; i < to; i++) {
+            float t = i == count - 1 ? 1f : i * step;
+
+            while (segment < positions.length - 2 && t > positions[segment + 1]) {
+                segment++;
+            }
+
+            out[offset + i] = sample(t, segment, scratch);
+        }
+    }
+
+    private int segmentFor(float t) {
+        int segment = 0;
+        while (segment < positions.length - 2 && t > positions[segment + 1]) {
+            segment++;
+        }
+        return segment;
+    }
+
+    private int sample(float t, int segment, float[] scratch) {
+        float start = positions[segment];
+        float end = positions[segment + 1];
+        float f = end > start ? (t - start) / (end - start) : 1f;
+        f = Math.max(0f, Math.min(1f, f));
+
+        final float[] c = components;
+        int i = segment * 4;
+        int j = i + 4;
+
+        int alpha = Math.round(c[i] + (c[j] - c[i]) * f);
+        float x = c[i + 1] + (c[j + 1] - c[i + 1]) * f;
+        float y = c[i + 2] + (c[j + 2] - c[i + 2]) * f;
+        float z = c[i + 3] + (c[j + 3] - c[i + 3]) * f;
+
+        switch (interpolation) {
+            case LINEAR_RGB:
+                return ColorMath.argb(alpha, ColorMath.linearToSrgb(x), ColorMath.linearToSrgb(y),
+                        ColorMath.linearToSrgb(z));
+            case HSV:
+                return ColorMath.hsvToColor(alpha, x, y, z);
+            case OKLAB:
+                return (alpha << 24) | (ColorMath.oklabToColor(x, y, z, scratch) & 0x00ffffff);
+            default:
+                return ColorMath.argb(alpha, Math.round(x), Math.round(y), Math.round(z));
+        }
+    }
+
+    private void toComponents(int color, int index) {
+        final float[] c = components;
+        c[index] = color >>> 24;
+
+        switch (interpolation) {
+            case LINEAR_RGB:
+                c[index + 1] = ColorMath.srgbToLinear(color >> 16);
+                c[index + 2] = ColorMath.srgbToLinear(color >> 8);
+                c[index + 3] = ColorMath.srgbToLinear(color);
+                break;
+            case HSV: {
+                float[] hsv = new float[3];
+                ColorMath.colorToHsv(color, hsv);
+                System.arraycopy(hsv, 0, c, index + 1, 3);
+                break;
+            }
+            case OKLAB: {
+                float[] lab = new float[3];
+                ColorMath.toOklab(color, lab);
+                System.arraycopy(lab, 0, c, index + 1, 3);
+                break;
+            }
+            default:
+                c[index + 1] = (color >> 16) & 0xff;
+                c[index + 2] = (color >> 8) & 0xff;
+                c[index + 3] = color & 0xff;
+                break;
+        }
+    }
+
+    /**
+     * Rewrites stop hues so that blending them linearly follows the shorter arc; gray stops borrow the hue of their
+     * neighbour so fading to white or black doesn't sweep through unrelated hues.
+     */
+    private void unwrapHues() {
+        final float[] c = components;
+        int stops = positions.length;
+
+        for (int i = 0; i < stops; i++) {
+            if (c[i * 4 + 2] != 0f) {
+                continue;
+            }
+
+            if (i > 0) {
+                c[i * 4 + 1] = c[(i - 1) * 4 + 1];
+                continue;
+            }
+
+            for (int k = 1; k < stops; k++) {
+                if (c[k * 4 + 2] != 0f) {
+                    c[1] = c[k * 4 + 1];
+                    break;
+                }
+            }
+        }
+
+        for (int i = 1; i < stops; i++) {
+            float delta = c[i * 4 + 1] - c[(i - 1) * 4 + 1];
+            delta -= 360f * Math.round(delta / 360f);
+            c[i * 4 + 1] = c[(i - 1) * 4 + 1] + delta;
+        }
+    }
+
+    private final class FillTask extends RecursiveAction {
+
+        private final int[] out;
+        private final int offset;
+        private final int from;
+        private final int to;
+        private final int count;
+
+        FillTask(int[] out, int offset, int from, int to, int count) {
+            this.out = out;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                fillRange(out, offset, from, to, count);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new FillTask(out, offset, from, middle, count), new FillTask(out, offset, middle, to, count));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Undo/redo history of packed ARGB colors kept in a fixed-capacity int ring buffer.
+ * Once full, recording drops the oldest entry; recording after an undo discards the redo entries.
+ * No objects are allocated per entry.
+ */
+public final class ColorHistory {
+
+    private final int[] entries;
+
+    private int start;
+    private int size;
+    private int cursor = -1;
+
+    public ColorHistory(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        entries = new int[capacity];
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Records a color as the newest entry, unless it equals the current one.
+     */
+    public void record(int color) {
+        if (size > 0 && entries[index(cursor)] == color) {
+            return;
+        }
+
+        size = cursor + 1;
+
+        if (size == entries.length) {
+            start = index(1);
+            size--;
+        }
+
+        entries[index(size)] = color;
+        cursor = size;
+        size++;
+    }
+
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    public boolean canRedo() {
+        return cursor < size - 1;
+    }
+
+    /**
+     * Steps back and returns the color that is current afterwards.
+     *
+     * @throws IllegalStateException if there is nothing to undo
+     */
+    public int undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        cursor--;
+        return entries[index(cursor)];
+    }
+
+    /**
+     * Steps forward and returns the color that is current afterwards.
+     *
+     * @throws IllegalStateException if there is nothing to redo
+     */
+    public int redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        cursor++;
+        return entries[index(cursor)];
+    }
+
+    /**
+     * Returns the current color.
+     *
+     * @throws IllegalStateException if the history is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("History is empty");
+        }
+        return entries[index(cursor)];
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+        cursor = -1;
+    }
+
+    /**
+     * Packs the entries oldest first, followed by the cursor position, for saving instance state.
+     */
+    int[] toArray() {
+        int[] packed = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            packed[i] = entries[index(i)];
+        }
+        packed[size] = cursor;
+        return packed;
+    }
+
+    /**
+     * Restores entries written by {@link #toArray()}, keeping the newest ones if the capacity shrank.
+     */
+    void restore(int[] packed) {
+        clear();
+
+        if (packed == null || packed.length < 2) {
+            return;
+        }
+
+        int count = packed.length - 1;
+        int skip = Math.max(0, count - entries.length);
+
+        for (int i = skip; i < count; i++) {
+            entries[i - skip] = packed[i];
+        }
+
+        size = count - skip;
+        cursor = Math.max(0, Math.min(size - 1, packed[count] - skip));
+    }
+
+    private int index(int offset) {
+        return (start + offset) % entries.length;
+    }
+}
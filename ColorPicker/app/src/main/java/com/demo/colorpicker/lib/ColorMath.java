@@ -0,0 +1,172 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Pure Java color conversions shared by the picker's helpers, usable off the UI thread and in JVM tests.
+ * Colors are packed ARGB ints as in {@link android.graphics.Color}; linear components are floats in [0, 1].
+ */
+final class ColorMath {
+
+    private static final int ENCODE_TABLE_SIZE = 4096;
+
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    private static final byte[] LINEAR_TO_SRGB = new byte[ENCODE_TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i < SRGB_TO_LINEAR.length; i++) {
+            SRGB_TO_LINEAR[i] = (float) decode(i / 255.0);
+        }
+        for (int i = 0; i <= ENCODE_TABLE_SIZE; i++) {
+            LINEAR_TO_SRGB[i] = (byte) Math.round(encode((double) i / ENCODE_TABLE_SIZE) * 255.0);
+        }
+    }
+
+    private ColorMath() {
+    }
+
+    static float srgbToLinear(int channel) {
+        return SRGB_TO_LINEAR[channel & 0xff];
+    }
+
+    /**
+     * Encodes a linear component, clamped to [0, 1], as an 8-bit sRGB channel.
+     */
+    static int linearToSrgb(float value) {
+        if (!(value > 0f)) {
+            return 0;
+        }
+        if (value >= 1f) {
+            return 0xff;
+        }
+        return LINEAR_TO_SRGB[(int) (value * ENCODE_TABLE_SIZE + 0.5f)] & 0xff;
+    }
+
+    /**
+     * Converts an sRGB color to OKLab, writing L, a and b into {@code out}.
+     */
+    static void toOklab(int color, float[] out) {
+        linearToOklab(srgbToLinear(color >> 16), srgbToLinear(color >> 8), srgbToLinear(color), out);
+    }
+
+    static void linearToOklab(float r, float g, float b, float[] out) {
+        float l = (float) Math.cbrt(0.4122214708f * r + 0.5363325363f * g + 0.0514459929f * b);
+        float m = (float) Math.cbrt(0.2119034982f * r + 0.6806995451f * g + 0.1073969566f * b);
+        float s = (float) Math.cbrt(0.0883024619f * r + 0.2817188376f * g + 0.6299787005f * b);
+
+        out[0] = 0.2104542553f * l + 0.7936177850f * m - 0.0040720468f * s;
+        out[1] = 1.9779984951f * l - 2.4285922050f * m + 0.4505937099f * s;
+        out[2] = 0.0259040371f * l + 0.7827717662f * m - 0.8086757660f * s;
+    }
+
+    /**
+     * Converts OKLab to linear sRGB, writing r, g and b into {@code out} without clamping.
+     */
+    static void oklabToLinear(float lightness, float a, float b, float[] out) {
+        float l = lightness + 0.3963377774f * a + 0.2158037573f * b;
+        float m = lightness - 0.1055613458f * a - 0.0638541728f * b;
+        float s = lightness - 0.0894841775f * a - 1.2914855480f * b;
+
+        l = l * l * l;
+        m = m * m * m;
+        s = s * s * s;
+
+        out[0] = 4.0767416621f * l - 3.3077115913f * m + 0.2309699292f * s;
+        out[1] = -1.2684380046f * l + 2.6097574011f * m - 0.3413193965f * s;
+        out[2] = -0.0041960863f * l - 0.7034186147f * m + 1.7076147010f * s;
+    }
+
+    /**
+     * Converts OKLab to an opaque sRGB color, clamping components that fall outside the gamut.
+     */
+    static int oklabToColor(float lightness, float a, float b, float[] scratch) {
+        oklabToLinear(lightness, a, b, scratch);
+        return argb(0xff, linearToSrgb(scratch[0]), linearToSrgb(scratch[1]), linearToSrgb(scratch[2]));
+    }
+
+    /**
+     * Same conversion as {@link android.graphics.Color#colorToHSV(int, float[])}: hue in [0, 360), saturation and
+     * value in [0, 1].
+     */
+    static void colorToHsv(int color, float[] hsv) {
+        rgbToHsv(((color >> 16) & 0xff) / 255f, ((color >> 8) & 0xff) / 255f, (color & 0xff) / 255f, hsv);
+    }
+
+    /**
+     * HSV of gamma encoded components in [0, 1], in whichever RGB space they are expressed.
+     */
+    static void rgbToHsv(float r, float g, float b, float[] hsv) {
+        float max = Math.max(r, Math.max(g, b));
+        float min = Math.min(r, Math.min(g, b));
+        float delta = max - min;
+
+        float hue;
+        if (delta <= 0f) {
+            hue = 0f;
+        } else if (max == r) {
+            hue = 60f * (g - b) / delta;
+        } else if (max == g) {
+            hue = 60f * (b - r) / delta + 120f;
+        } else {
+            hue = 60f * (r - g) / delta + 240f;
+        }
+
+        hsv[0] = hue < 0f ? hue + 360f : hue;
+        hsv[1] = max <= 0f ? 0f : delta / max;
+        hsv[2] = max;
+    }
+
+    static int hsvToColor(int alpha, float hue, float saturation, float value) {
+        hue = wrapHue(hue);
+        return argb(alpha,
+                Math.round(hsvChannel(5, hue, saturation, value) * 255f),
+                Math.round(hsvChannel(3, hue, saturation, value) * 255f),
+                Math.round(hsvChannel(1, hue, saturation, value) * 255f));
+    }
+
+    /**
+     * Writes the gamma encoded r, g and b components in [0, 1] of an HSV color into {@code rgb}.
+     */
+    static void hsvToRgb(float hue, float saturation, float value, float[] rgb) {
+        hue = wrapHue(hue);
+        rgb[0] = hsvChannel(5, hue, saturation, value);
+        rgb[1] = hsvChannel(3, hue, saturation, value);
+        rgb[2] = hsvChannel(1, hue, saturation, value);
+    }
+
+    private static float wrapHue(float hue) {
+        if (hue < 0f || hue >= 360f) {
+            hue -= 360f * (float) Math.floor(hue / 360f);
+        }
+        return hue;
+    }
+
+    private static float hsvChannel(int n, float hue, float saturation, float value) {
+        float k = n + hue / 60f;
+        if (k >= 6f) {
+            k -= 6f;
+        }
+        return value - value * saturation * Math.max(0f, Math.min(Math.min(k, 4f - k), 1f));
+    }
+
+    /**
+     * The sRGB transfer function, also used by Display P3, at float precision.
+     */
+    static float decodeSrgb(float value) {
+        return (float) decode(value);
+    }
+
+    static float encodeSrgb(float value) {
+        return (float) encode(value);
+    }
+
+    static int argb(int alpha, int red, int green, int blue) {
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    private static double decode(double value) {
+        return value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4);
+    }
+
+    private static double encode(double value) {
+        return value <= 0.0031308 ? value * 12.92 : 1.055 * Math.pow(value, 1 / 2.4) - 0.055;
+    }
+}
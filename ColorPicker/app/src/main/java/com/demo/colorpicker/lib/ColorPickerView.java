@@ -1,37 +1,51 @@
 package com.demo.colorpicker.lib;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Bitmap.Config;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.ColorSpace;
 import android.graphics.ComposeShader;
 import android.graphics.LinearGradient;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
-import android.graphics.Point;
+import android.graphics.PointF;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Shader;
 import android.graphics.Shader.TileMode;
+import android.graphics.SweepGradient;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
 public class ColorPickerView extends View {
 
     private final static int DEFAULT_BORDER_COLOR = 0xFF6E6E6E;
     private final static int DEFAULT_SLIDER_COLOR = 0xFFBDBDBD;
 
     private final static int HUE_PANEL_HEIGHT_DP = 10;
+    private final static int HUE_RING_WIDTH_DP = 16;
     private final static int ALPHA_PANEL_HEIGHT_DP = 10;
     private final static int PANEL_SPACING_DP = 10;
     private final static int CIRCLE_TRACKER_RADIUS_DP = 5;
@@ -40,8 +54,21 @@ public class ColorPickerView extends View {
 
     private final static int BORDER_WIDTH_PX = 1;
 
+    private final static int PANEL_NONE = 0;
+    private final static int PANEL_SAT_VAL = 1;
+    private final static int PANEL_HUE = 2;
+    private final static int PANEL_ALPHA = 3;
+
+    private final static int DEFAULT_PANEL_CACHE_BUDGET_BYTES = 8 * 1024 * 1024;
+    private final static int HALF_FLOAT_BYTES_PER_PIXEL = 8;
+
+    private final static int HISTOGRAM_HUE_RADIUS_BINS = 1;
+    private final static int HISTOGRAM_MAX_ALPHA = 0xc0;
+
     private int huePanelHeightPx;
 
+    private int hueRingWidthPx;
+
     private int alphaPanelHeightPx;
 
     private int panelSpacingPx;
@@ -62,37 +89,110 @@ public class ColorPickerView extends View {
     private Paint hueAlphaTrackerShadowPaint;
 
     private Paint borderPaint;
+    private Paint panelBitmapPaint;
+    private Paint histogramPaint;
+    private Paint snapSwatchPaint;
 
     private Shader valShader;
     private Shader satShader;
     private Shader alphaShader;
+    private int alphaShaderColor;
 
     private BitmapCache satValBackgroundCache;
 
     private BitmapCache hueBackgroundCache;
 
+    private PaletteIndex snapPalette;
+    private int snappedIndex = -1;
+    private int snapPaletteRequest;
+    // Unlike View.post, which holds runnables back until the view is attached.
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ImageHistogram imageHistogram;
+    private ImageHistogramLoader.Task imageColorsTask;
+    private Bitmap histogramOverlay;
+    private int[] histogramDensity;
+    private int[] histogramPixels;
+    private int histogramOverlayVersion;
+    private int histogramOverlayHueBin = -1;
+
     private int alpha = 0xff;
     private float hue = 360f;
     private float sat = 0f;
     private float val = 0f;
 
     private boolean showAlphaPanel = true;
+    private boolean hueWheelMode = false;
+    private ColorVisionDeficiency colorVisionDeficiency = null;
+    private boolean wideGamut = false;
+    private boolean memoryPressure = false;
+    private int panelCacheBudgetBytes = DEFAULT_PANEL_CACHE_BUDGET_BYTES;
     private String alphaSliderText = null;
     private int sliderTrackerColor = DEFAULT_SLIDER_COLOR;
     private int borderColor = DEFAULT_BORDER_COLOR;
 
     private int mRequiredPadding;
 
-    private Rect drawingRect;
-
-    private Rect satValRect;
-    private Rect hueRect;
-    private Rect alphaRect;
-
-    private Point startTouchPoint = null;
+    private final Rect drawingRect = new Rect();
+
+    private final Rect satValRect = new Rect();
+    private final Rect hueRect = new Rect();
+    private final Rect alphaRect = new Rect();
+    private final RectF alphaRectF = new RectF();
+    private final float[] alphaHsv = new float[3];
+    private final float[] rgbScratch = new float[3];
+    // Touch and draw scratch; the tracker point is only valid until the next *ToPoint call.
+    private final float[] hsvScratch = new float[3];
+    private final float[] satValScratch = new float[2];
+    private final PointF trackerPoint = new PointF();
+
+    private float hueWheelCenterX;
+    private float hueWheelCenterY;
+    private float hueWheelOuterRadius;
+    private float hueWheelInnerRadius;
+
+    private PointF startTouchPoint = null;
+
+    private final TouchPredictor touchPredictor = new TouchPredictor();
+    private final float[] predictedTouch = new float[2];
+    private int touchPredictionMillis = 0;
+    private boolean trackerPredicted;
+    private float predictedHue;
+    private float predictedSat;
+    private float predictedVal;
+    private float predictedAlpha;
+
+    private final LayoutKey measureKey = new LayoutKey();
+    private final LayoutKey panelLayoutKey = new LayoutKey();
+    private int cachedMeasuredWidth;
+    private int cachedMeasuredHeight;
 
     private AlphaPatternDrawable alphaPatternDrawable;
     private OnColorChangedListener onColorChangedListener;
+    private final ColorChangeStream colorChangeStream = new ColorChangeStream();
+    private ColorHistory colorHistory;
+    private int historyAppliedColor;
+    private boolean historyApplied;
+
+    final RenderStats renderStats = new RenderStats();
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                onMemoryPressure();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            onMemoryPressure();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
 
     public ColorPickerView(Context context) {
         this(context, null);
@@ -118,6 +218,10 @@ public class ColorPickerView extends View {
         state.putBoolean("show_alpha", showAlphaPanel);
         state.putString("alpha_text", alphaSliderText);
 
+        if (colorHistory != null) {
+            state.putIntArray("history", colorHistory.toArray());
+        }
+
         return state;
     }
 
@@ -131,9 +235,14 @@ public class ColorPickerView extends View {
             hue = bundle.getFloat("hue");
             sat = bundle.getFloat("sat");
             val = bundle.getFloat("val");
+            snap();
             showAlphaPanel = bundle.getBoolean("show_alpha");
             alphaSliderText = bundle.getString("alpha_text");
 
+            if (colorHistory != null) {
+                colorHistory.restore(bundle.getIntArray("history"));
+            }
+
             state = bundle.getParcelable("instanceState");
         }
         super.onRestoreInstanceState(state);
@@ -143,6 +252,7 @@ public class ColorPickerView extends View {
         applyThemeColors(context);
 
         huePanelHeightPx = DrawingUtils.dpToPx(getContext(), HUE_PANEL_HEIGHT_DP);
+        hueRingWidthPx = DrawingUtils.dpToPx(getContext(), HUE_RING_WIDTH_DP);
         alphaPanelHeightPx = DrawingUtils.dpToPx(getContext(), ALPHA_PANEL_HEIGHT_DP);
         panelSpacingPx = DrawingUtils.dpToPx(getContext(), PANEL_SPACING_DP);
         circleTrackerRadiusPx = DrawingUtils.dpToPx(getContext(), CIRCLE_TRACKER_RADIUS_DP);
@@ -181,6 +291,9 @@ public class ColorPickerView extends View {
         hueAlphaTrackerFillPaint = new Paint();
         hueAlphaTrackerShadowPaint = new Paint();
         alphaPaint = new Paint();
+        panelBitmapPaint = new Paint();
+        histogramPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        snapSwatchPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         alphaTextPaint = new Paint();
         borderPaint = new Paint();
 
@@ -211,6 +324,23 @@ public class ColorPickerView extends View {
         alphaTextPaint.setFakeBoldText(true);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        memoryPressure = false;
+        getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        getContext().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+        if (imageColorsTask != null) {
+            imageColorsTask.cancel();
+            imageColorsTask = null;
+        }
+        super.onDetachedFromWindow();
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         if (drawingRect.width() <= 0 || drawingRect.height() <= 0) {
@@ -227,52 +357,123 @@ public class ColorPickerView extends View {
 
         if (BORDER_WIDTH_PX > 0) {
             borderPaint.setColor(borderColor);
-            canvas.drawRoundRect(drawingRect.left, drawingRect.top, rect.right + BORDER_WIDTH_PX, rect.bottom + BORDER_WIDTH_PX
+            canvas.drawRoundRect(rect.left - BORDER_WIDTH_PX, rect.top - BORDER_WIDTH_PX, rect.right + BORDER_WIDTH_PX,
+                    rect.bottom + BORDER_WIDTH_PX
                     , (float) huePanelHeightPx / 2, (float) huePanelHeightPx / 2, borderPaint);
         }
 
+        if (satValBackgroundCache == null || satValBackgroundCache.value != hue) {
+            renderSatValBackground(hue);
+        }
+
+        canvas.drawBitmap(satValBackgroundCache.bitmap, null, rect, panelBitmapPaint);
+
+        if (imageHistogram != null) {
+            drawHistogramOverlay(canvas, rect);
+        }
+
+        PointF p = trackerPredicted ? satValToPoint(predictedSat, predictedVal) : satValToPoint(sat, val);
+
+        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, hueAlphaTrackerShadowPaint);
+
+        // Over the shadow, whose blur would otherwise darken the small swatch all the way to its center.
+        if (snappedIndex >= 0) {
+            snapSwatchPaint.setColor(0xff000000 | snapPalette.color(snappedIndex));
+            canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, snapSwatchPaint);
+        }
+
+        satValTrackerPaint.setColor(Color.WHITE);
+        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, satValTrackerPaint);
+    }
+
+    private void renderSatValBackground(float hue) {
+        final Rect rect = satValRect;
+
         if (valShader == null) {
             valShader =
-                    new LinearGradient(rect.left, rect.top, rect.left, rect.bottom, 0xffffffff, 0xff000000, TileMode.CLAMP);
+                    new LinearGradient(0, 0, 0, rect.height(), 0xffffffff, 0xff000000, TileMode.CLAMP);
+            renderStats.shaderConstructions++;
         }
 
-        if (satValBackgroundCache == null || satValBackgroundCache.value != hue) {
+        if (satValBackgroundCache == null) {
+            satValBackgroundCache = new BitmapCache();
+        }
 
-            if (satValBackgroundCache == null) {
-                satValBackgroundCache = new BitmapCache();
-            }
+        if (satValBackgroundCache.bitmap == null) {
+            satValBackgroundCache.bitmap = createPanelBitmap(rect.width(), rect.height());
+            renderStats.bitmapAllocations++;
+        }
 
-            if (satValBackgroundCache.bitmap == null) {
-                satValBackgroundCache.bitmap = Bitmap.createBitmap(rect.width(), rect.height(), Config.ARGB_8888);
-            }
+        if (satValBackgroundCache.canvas == null) {
+            satValBackgroundCache.canvas = new Canvas(satValBackgroundCache.bitmap);
+        }
 
-            if (satValBackgroundCache.canvas == null) {
-                satValBackgroundCache.canvas = new Canvas(satValBackgroundCache.bitmap);
-            }
+        if (wideGamut && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ColorMath.hsvToRgb(hue, 1f, 1f, rgbScratch);
+            satShader = WideGamut.linearGradient(0, 0, rect.width(), 0, WideGamut.pack(1f, 1f, 1f, 1f),
+                    WideGamut.pack(rgbScratch[0], rgbScratch[1], rgbScratch[2], 1f));
+        } else {
+            hsvScratch[0] = hue;
+            hsvScratch[1] = 1f;
+            hsvScratch[2] = 1f;
+            int rgb = Color.HSVToColor(hsvScratch);
+            satShader = new LinearGradient(0, 0, rect.width(), 0, 0xffffffff, rgb, TileMode.CLAMP);
+        }
 
-            int rgb = Color.HSVToColor(new float[]{hue, 1f, 1f});
+        ComposeShader mShader = new ComposeShader(valShader, satShader, PorterDuff.Mode.MULTIPLY);
+        satValPaint.setShader(mShader);
+        renderStats.shaderConstructions += 2;
 
-            satShader = new LinearGradient(rect.left, rect.top, rect.right, rect.top, 0xffffffff, rgb, TileMode.CLAMP);
+        satValBackgroundCache.canvas.drawRoundRect(0, 0, satValBackgroundCache.bitmap.getWidth(),
+                satValBackgroundCache.bitmap.getHeight(), (float) huePanelHeightPx / 2, (float) huePanelHeightPx / 2, satValPaint);
 
-            ComposeShader mShader = new ComposeShader(valShader, satShader, PorterDuff.Mode.MULTIPLY);
-            satValPaint.setShader(mShader);
+        satValBackgroundCache.value = hue;
+        renderStats.satValRenders++;
+    }
 
-            satValBackgroundCache.canvas.drawRoundRect(0, 0, satValBackgroundCache.bitmap.getWidth(),
-                    satValBackgroundCache.bitmap.getHeight(), (float) huePanelHeightPx / 2, (float) huePanelHeightPx / 2, satValPaint);
+    private void drawHistogramOverlay(Canvas canvas, Rect rect) {
+        final int satBins = ImageHistogram.SAT_BINS;
+        final int valBins = ImageHistogram.VAL_BINS;
 
-            satValBackgroundCache.value = hue;
+        if (histogramOverlay == null) {
+            histogramOverlay = Bitmap.createBitmap(satBins, valBins, Config.ARGB_8888);
+            histogramDensity = new int[satBins * valBins];
+            histogramPixels = new int[satBins * valBins];
+            renderStats.bitmapAllocations++;
         }
 
-        canvas.drawBitmap(satValBackgroundCache.bitmap, null, rect, null);
+        int version = imageHistogram.version();
+        int hueBin = ImageHistogram.hueBin(hue);
 
-        Point p = satValToPoint(sat, val);
+        // Only re-rendered when tiles were counted or the hue moved to another bin, not on sat/val drags.
+        if (version != histogramOverlayVersion || hueBin != histogramOverlayHueBin) {
+            int max = imageHistogram.satValDensity(hue, HISTOGRAM_HUE_RADIUS_BINS, histogramDensity);
 
-        satValTrackerPaint.setColor(Color.WHITE);
-        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, hueAlphaTrackerShadowPaint);
-        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, satValTrackerPaint);
+            for (int v = 0; v < valBins; v++) {
+                // Dark marks on the bright upper half of the panel, light ones on the dark lower half.
+                int rgb = v >= valBins / 2 ? 0x000000 : 0xffffff;
+
+                for (int s = 0; s < satBins; s++) {
+                    int density = histogramDensity[v * satBins + s];
+                    int alpha = max == 0 ? 0 : (int) (HISTOGRAM_MAX_ALPHA * Math.sqrt((double) density / max));
+                    histogramPixels[(valBins - 1 - v) * satBins + s] = (alpha << 24) | rgb;
+                }
+            }
+
+            histogramOverlay.setPixels(histogramPixels, 0, satBins, 0, 0, satBins, valBins);
+            histogramOverlayVersion = version;
+            histogramOverlayHueBin = hueBin;
+        }
+
+        canvas.drawBitmap(histogramOverlay, null, rect, histogramPaint);
     }
 
     private void drawHuePanel(Canvas canvas) {
+        if (hueWheelMode) {
+            drawHueWheel(canvas);
+            return;
+        }
+
         final Rect rect = hueRect;
 
         if (BORDER_WIDTH_PX > 0) {
@@ -284,14 +485,16 @@ public class ColorPickerView extends View {
 
         if (hueBackgroundCache == null) {
             hueBackgroundCache = new BitmapCache();
-            hueBackgroundCache.bitmap = Bitmap.createBitmap(rect.width(), rect.height(), Config.ARGB_8888);
+            hueBackgroundCache.bitmap = createPanelBitmap(rect.width(), rect.height());
             hueBackgroundCache.canvas = new Canvas(hueBackgroundCache.bitmap);
+            renderStats.bitmapAllocations++;
+            renderStats.hueRenders++;
 
-            int[] hueColors = new int[(int) (rect.width() + 0.5f)];
+            float[] hues = new float[(int) (rect.width() + 0.5f)];
             float w = 360f;
-            for (int i = 0; i < hueColors.length; i++) {
-                hueColors[i] = Color.HSVToColor(new float[]{w, 1f, 1f});
-                w -= 360f / hueColors.length;
+            for (int i = 0; i < hues.length; i++) {
+                hues[i] = w;
+                w -= 360f / hues.length;
             }
 
             Paint paint = new Paint();
@@ -302,16 +505,16 @@ public class ColorPickerView extends View {
             Paint linePaint = new Paint();
             linePaint.setStrokeWidth(0);
             linePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-            for (int i = 0; i < hueColors.length; i++) {
-                linePaint.setColor(hueColors[i]);
+            for (int i = 0; i < hues.length; i++) {
+                setHueColor(linePaint, hues[i]);
                 hueBackgroundCache.canvas.drawLine(i, 0, i, hueBackgroundCache.bitmap.getHeight(), linePaint);
             }
         }
 
-        canvas.drawBitmap(hueBackgroundCache.bitmap, null, rect, null);
+        canvas.drawBitmap(hueBackgroundCache.bitmap, null, rect, panelBitmapPaint);
 
-        Point p = hueToPoint(hue);
-        float x = (float) p.x;
+        PointF p = hueToPoint(trackerPredicted ? predictedHue : hue);
+        float x = p.x;
         float y = (float) (p.y + DrawingUtils.dpToPx(getContext(), HUE_PANEL_HEIGHT_DP) / 2);
 
         canvas.drawCircle(x, y, circleTrackerRadiusPx, hueAlphaTrackerShadowPaint);
@@ -319,11 +522,63 @@ public class ColorPickerView extends View {
         canvas.drawCircle(x, y, circleTrackerRadiusPx, hueAlphaTrackerFillPaint);
     }
 
+    private void drawHueWheel(Canvas canvas) {
+        final Rect rect = hueRect;
+        final float ringRadius = hueWheelOuterRadius - hueRingWidthPx / 2f;
+
+        if (hueBackgroundCache == null) {
+            hueBackgroundCache = new BitmapCache();
+            hueBackgroundCache.bitmap = createPanelBitmap(rect.width(), rect.height());
+            hueBackgroundCache.canvas = new Canvas(hueBackgroundCache.bitmap);
+            renderStats.bitmapAllocations++;
+            renderStats.hueRenders++;
+
+            float cx = rect.width() / 2f;
+            float cy = rect.height() / 2f;
+
+            Paint ringPaint = new Paint();
+            ringPaint.setStyle(Style.STROKE);
+            ringPaint.setAntiAlias(true);
+
+            if (BORDER_WIDTH_PX > 0) {
+                ringPaint.setColor(borderColor);
+                ringPaint.setStrokeWidth(hueRingWidthPx + 2 * BORDER_WIDTH_PX);
+                hueBackgroundCache.canvas.drawCircle(cx, cy, ringRadius, ringPaint);
+            }
+
+            if (wideGamut && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                long[] hueColors = new long[7];
+                for (int i = 0; i < hueColors.length; i++) {
+                    ColorMath.hsvToRgb(i * 60f, 1f, 1f, rgbScratch);
+                    hueColors[i] = WideGamut.pack(rgbScratch[0], rgbScratch[1], rgbScratch[2], 1f);
+                }
+                ringPaint.setShader(WideGamut.sweepGradient(cx, cy, hueColors));
+            } else {
+                int[] hueColors = new int[7];
+                for (int i = 0; i < hueColors.length; i++) {
+                    hueColors[i] = Color.HSVToColor(new float[]{i * 60f, 1f, 1f});
+                }
+                ringPaint.setShader(new SweepGradient(cx, cy, hueColors, null));
+            }
+            renderStats.shaderConstructions++;
+            ringPaint.setStrokeWidth(hueRingWidthPx);
+            hueBackgroundCache.canvas.drawCircle(cx, cy, ringRadius, ringPaint);
+        }
+
+        canvas.drawBitmap(hueBackgroundCache.bitmap, null, rect, panelBitmapPaint);
+
+        PointF p = hueToWheelPoint(trackerPredicted ? predictedHue : hue);
+
+        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, hueAlphaTrackerShadowPaint);
+        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, hueAlphaTrackerPaint);
+        canvas.drawCircle(p.x, p.y, circleTrackerRadiusPx, hueAlphaTrackerFillPaint);
+    }
+
     private void drawAlphaPanel(Canvas canvas) {
 
-        if (!showAlphaPanel || alphaRect == null || alphaPatternDrawable == null) return;
+        if (!showAlphaPanel || alphaRect.isEmpty() || alphaPatternDrawable == null) return;
 
-        final RectF rect = new RectF(alphaRect);
+        final RectF rect = alphaRectF;
 
         if (BORDER_WIDTH_PX > 0) {
             borderPaint.setColor(borderColor);
@@ -333,13 +588,26 @@ public class ColorPickerView extends View {
 
         alphaPatternDrawable.draw(canvas);
 
-        float[] hsv = new float[]{hue, sat, val};
-        int color = Color.HSVToColor(hsv);
-        int acolor = Color.HSVToColor(0, hsv);
-
-        alphaShader = new LinearGradient(rect.left, rect.top, rect.right, rect.top, color, acolor, TileMode.CLAMP);
-
-        alphaPaint.setShader(alphaShader);
+        alphaHsv[0] = hue;
+        alphaHsv[1] = sat;
+        alphaHsv[2] = val;
+        int color = Color.HSVToColor(alphaHsv);
+
+        // Alpha-only drags keep the opaque color, so the gradient is only rebuilt when hue, sat or val move.
+        if (alphaShader == null || alphaShaderColor != color) {
+            if (wideGamut && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                ColorMath.hsvToRgb(hue, sat, val, rgbScratch);
+                alphaShader = WideGamut.linearGradient(rect.left, rect.top, rect.right, rect.top,
+                        WideGamut.pack(rgbScratch[0], rgbScratch[1], rgbScratch[2], 1f),
+                        WideGamut.pack(rgbScratch[0], rgbScratch[1], rgbScratch[2], 0f));
+            } else {
+                alphaShader = new LinearGradient(rect.left, rect.top, rect.right, rect.top, color, color & 0x00ffffff,
+                        TileMode.CLAMP);
+            }
+            alphaShaderColor = color;
+            alphaPaint.setShader(alphaShader);
+            renderStats.shaderConstructions++;
+        }
 
         canvas.drawRoundRect(rect, alphaPanelHeightPx, alphaPanelHeightPx, alphaPaint);
 
@@ -348,8 +616,8 @@ public class ColorPickerView extends View {
                     alphaTextPaint);
         }
 
-        Point p = alphaToPoint(alpha);
-        float x = (float) p.x;
+        PointF p = alphaToPoint(trackerPredicted ? predictedAlpha : alpha);
+        float x = p.x;
         float y = (float) (p.y + DrawingUtils.dpToPx(getContext(), HUE_PANEL_HEIGHT_DP) / 2);
 
         canvas.drawCircle(x, y, circleTrackerRadiusPx, hueAlphaTrackerShadowPaint);
@@ -357,41 +625,54 @@ public class ColorPickerView extends View {
         canvas.drawCircle(x, y, circleTrackerRadiusPx, hueAlphaTrackerFillPaint);
     }
 
-    private Point hueToPoint(float hue) {
+    PointF hueToPoint(float hue) {
 
         final Rect rect = hueRect;
         final float width = rect.width();
 
-        Point p = new Point();
+        PointF p = trackerPoint;
 
-        p.x = (int) (width - (hue * width / 360f) + rect.left);
+        p.x = width - (hue * width / 360f) + rect.left;
         p.y = rect.top;
 
         return p;
     }
 
-    private Point satValToPoint(float sat, float val) {
+    PointF hueToWheelPoint(float hue) {
+
+        final float ringRadius = hueWheelOuterRadius - hueRingWidthPx / 2f;
+        final double radians = Math.toRadians(hue);
+
+        PointF p = trackerPoint;
+
+        p.x = hueWheelCenterX + (float) Math.cos(radians) * ringRadius;
+        p.y = hueWheelCenterY + (float) Math.sin(radians) * ringRadius;
+
+        return p;
+    }
+
+    private PointF satValToPoint(float sat, float val) {
 
         final Rect rect = satValRect;
         final float height = rect.height();
         final float width = rect.width();
 
-        Point p = new Point();
+        PointF p = trackerPoint;
 
-        p.x = (int) (sat * width + rect.left);
-        p.y = (int) ((1f - val) * height + rect.top);
+        p.x = sat * width + rect.left;
+        p.y = (1f - val) * height + rect.top;
 
         return p;
     }
 
-    private Point alphaToPoint(int alpha) {
+    private PointF alphaToPoint(float alpha) {
 
         final Rect rect = alphaRect;
         final float width = rect.width();
 
-        Point p = new Point();
+        PointF p = trackerPoint;
 
-        p.x = (int) (width - (alpha * width / 0xff) + rect.left);
+        p.x = width - (alpha * width / 0xff) + rect.left;
         p.y = rect.top;
 
         return p;
@@ -400,7 +681,7 @@ public class ColorPickerView extends View {
     private float[] pointToSatVal(float x, float y) {
 
         final Rect rect = satValRect;
-        float[] result = new float[2];
+        float[] result = satValScratch;
 
         float width = rect.width();
         float height = rect.height();
@@ -427,7 +708,7 @@ public class ColorPickerView extends View {
         return result;
     }
 
-    private float pointToHue(float x) {
+    float pointToHue(float x) {
 
         final Rect rect = hueRect;
 
@@ -444,7 +725,22 @@ public class ColorPickerView extends View {
         return 360f - (x * 360f / width);
     }
 
-    private int pointToAlpha(int x) {
+    float pointToWheelHue(float x, float y) {
+        return PolarLookup.angleDegrees(x - hueWheelCenterX, y - hueWheelCenterY);
+    }
+
+    boolean isInHuePanel(float x, float y) {
+        if (!hueWheelMode) {
+            return hueRect.contains((int) x, (int) y);
+        }
+
+        float slop = panelSpacingPx / 2f;
+
+        return PolarLookup.inAnnulus(x - hueWheelCenterX, y - hueWheelCenterY,
+                hueWheelInnerRadius - slop, hueWheelOuterRadius + slop);
+    }
+
+    private float pointToAlpha(float x) {
 
         final Rect rect = alphaRect;
         final int width = rect.width();
@@ -467,23 +763,48 @@ public class ColorPickerView extends View {
         switch (event.getAction()) {
 
             case MotionEvent.ACTION_DOWN:
-                startTouchPoint = new Point((int) event.getX(), (int) event.getY());
+                startTouchPoint = new PointF(event.getX(), event.getY());
+                touchPredictor.reset();
+                if (colorHistory != null) {
+                    recordHistory(getColor());
+                }
                 update = moveTrackersIfNeeded(event);
                 break;
             case MotionEvent.ACTION_MOVE:
                 update = moveTrackersIfNeeded(event);
                 break;
             case MotionEvent.ACTION_UP:
-                startTouchPoint = null;
                 update = moveTrackersIfNeeded(event);
+                if (update && snappedIndex >= 0) {
+                    settleOnSnappedSwatch();
+                }
+                if (update && colorHistory != null) {
+                    recordHistory(getColor());
+                }
+                startTouchPoint = null;
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                if (startTouchPoint != null && snappedIndex >= 0) {
+                    // getColor() already reports the swatch, so the trackers must not stay where the finger was.
+                    settleOnSnappedSwatch();
+                    invalidate();
+                }
+                startTouchPoint = null;
+                if (trackerPredicted) {
+                    trackerPredicted = false;
+                    invalidate();
+                }
                 break;
         }
 
         if (update) {
-            if (onColorChangedListener != null) {
-                int color = Color.HSVToColor(alpha, new float[]{hue, sat, val});
+            if (onColorChangedListener != null || colorChangeStream.hasSubscribers()) {
+                int color = getColor();
                 hueAlphaTrackerPaint.setColor(color);
-                onColorChangedListener.onColorChanged(color);
+                if (onColorChangedListener != null) {
+                    onColorChangedListener.onColorChanged(color);
+                }
+                colorChangeStream.publish(color);
             }
             invalidate();
             return true;
@@ -497,33 +818,90 @@ public class ColorPickerView extends View {
             return false;
         }
 
-        boolean update = false;
+        int panel = panelAt(startTouchPoint.x, startTouchPoint.y);
 
-        int startX = startTouchPoint.x;
-        int startY = startTouchPoint.y;
+        if (panel == PANEL_NONE) {
+            return false;
+        }
 
-        if (hueRect.contains(startX, startY)) {
-            hue = pointToHue(event.getX());
+        // Only the latest sample moves the color; the batched ones in between just feed the predictor.
+        float x = event.getX();
+        float y = event.getY();
 
-            update = true;
-        } else if (satValRect.contains(startX, startY)) {
-            float[] result = pointToSatVal(event.getX(), event.getY());
+        if (panel == PANEL_HUE) {
+            hue = hueWheelMode ? pointToWheelHue(x, y) : pointToHue(x);
+        } else if (panel == PANEL_SAT_VAL) {
+            float[] result = pointToSatVal(x, y);
 
             sat = result[0];
             val = result[1];
+        } else {
+            alpha = Math.round(pointToAlpha(x));
+        }
+
+        if (panel != PANEL_ALPHA) {
+            snap();
+        }
 
-            update = true;
-        } else if (alphaRect != null && alphaRect.contains(startX, startY)) {
-            alpha = pointToAlpha((int) event.getX());
+        trackerPredicted = false;
 
-            update = true;
+        if (touchPredictionMillis > 0) {
+            for (int i = 0; i < event.getHistorySize(); i++) {
+                touchPredictor.addSample(event.getHistoricalX(i), event.getHistoricalY(i),
+                        event.getHistoricalEventTime(i));
+            }
+            touchPredictor.addSample(x, y, event.getEventTime());
+
+            if (event.getActionMasked() == MotionEvent.ACTION_MOVE
+                    && touchPredictor.predict(event.getEventTime() + touchPredictionMillis, predictedTouch)) {
+                predictTrackers(panel, predictedTouch[0], predictedTouch[1]);
+            }
         }
 
-        return update;
+        return true;
+    }
+
+    private int panelAt(float x, float y) {
+        if (isInHuePanel(x, y)) {
+            return PANEL_HUE;
+        } else if (satValRect.contains((int) x, (int) y)) {
+            return PANEL_SAT_VAL;
+        } else if (showAlphaPanel && alphaRect.contains((int) x, (int) y)) {
+            return PANEL_ALPHA;
+        }
+        return PANEL_NONE;
+    }
+
+    private void predictTrackers(int panel, float x, float y) {
+        predictedHue = hue;
+        predictedSat = sat;
+        predictedVal = val;
+        predictedAlpha = alpha;
+
+        if (panel == PANEL_HUE) {
+            predictedHue = hueWheelMode ? pointToWheelHue(x, y) : pointToHue(x);
+        } else if (panel == PANEL_SAT_VAL) {
+            float[] result = pointToSatVal(x, y);
+
+            predictedSat = result[0];
+            predictedVal = result[1];
+        } else {
+            predictedAlpha = pointToAlpha(x);
+        }
+
+        trackerPredicted = true;
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Parents like ConstraintLayout measure several times per frame, mostly with specs seen before.
+        if (!updateLayoutKey(measureKey, widthMeasureSpec, heightMeasureSpec)) {
+            setMeasuredDimension(cachedMeasuredWidth, cachedMeasuredHeight);
+            return;
+        }
+
+        renderStats.measurePasses++;
+
         int finalWidth;
         int finalHeight;
 
@@ -535,7 +913,7 @@ public class ColorPickerView extends View {
 
         if (widthMode == MeasureSpec.EXACTLY || heightMode == MeasureSpec.EXACTLY) {
             if (widthMode == MeasureSpec.EXACTLY && heightMode != MeasureSpec.EXACTLY) {
-                int h = widthAllowed + panelSpacingPx + huePanelHeightPx;
+                int h = widthAllowed + getHuePanelExtentPx();
 
                 if (showAlphaPanel) {
                     h += panelSpacingPx + alphaPanelHeightPx;
@@ -550,7 +928,7 @@ public class ColorPickerView extends View {
                 finalWidth = widthAllowed;
             } else if (heightMode == MeasureSpec.EXACTLY && widthMode != MeasureSpec.EXACTLY) {
 
-                int w = (heightAllowed - panelSpacingPx - huePanelHeightPx);
+                int w = (heightAllowed - getHuePanelExtentPx());
 
                 if (showAlphaPanel) {
                     w -= (panelSpacingPx + alphaPanelHeightPx);
@@ -568,9 +946,9 @@ public class ColorPickerView extends View {
                 finalHeight = heightAllowed;
             }
         } else {
-            int widthNeeded = (heightAllowed - panelSpacingPx - huePanelHeightPx);
+            int widthNeeded = (heightAllowed - getHuePanelExtentPx());
 
-            int heightNeeded = (widthAllowed + panelSpacingPx + huePanelHeightPx);
+            int heightNeeded = (widthAllowed + getHuePanelExtentPx());
 
             if (showAlphaPanel) {
                 widthNeeded -= (panelSpacingPx + alphaPanelHeightPx);
@@ -603,8 +981,19 @@ public class ColorPickerView extends View {
             }
         }
 
-        setMeasuredDimension(finalWidth + getPaddingLeft() + getPaddingRight(),
-                finalHeight + getPaddingTop() + getPaddingBottom());
+        cachedMeasuredWidth = finalWidth + getPaddingLeft() + getPaddingRight();
+        cachedMeasuredHeight = finalHeight + getPaddingTop() + getPaddingBottom();
+
+        setMeasuredDimension(cachedMeasuredWidth, cachedMeasuredHeight);
+    }
+
+    private boolean updateLayoutKey(LayoutKey key, int width, int height) {
+        return key.update(width, height, getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom(),
+                showAlphaPanel, hueWheelMode);
+    }
+
+    private int getHuePanelExtentPx() {
+        return hueWheelMode ? 0 : panelSpacingPx + huePanelHeightPx;
     }
 
     private int getPreferredWidth() {
@@ -643,28 +1032,72 @@ public class ColorPickerView extends View {
     }
 
     @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        layoutPanels(right - left, bottom - top);
+    }
 
-        drawingRect = new Rect();
-        drawingRect.left = getPaddingLeft();
-        drawingRect.right = w - getPaddingRight();
-        drawingRect.top = getPaddingTop();
-        drawingRect.bottom = h - getPaddingBottom();
+    /**
+     * Lays the panels out for the given view size. Runs on every layout pass rather than only on size changes, so
+     * padding and panel visibility changes are picked up too, but returns early when none of its inputs changed.
+     */
+    private void layoutPanels(int width, int height) {
+        if (!updateLayoutKey(panelLayoutKey, width, height)) {
+            return;
+        }
 
-        valShader = null;
-        satShader = null;
-        alphaShader = null;
+        int oldSatValWidth = satValRect.width();
+        int oldSatValHeight = satValRect.height();
+        int oldHueWidth = hueRect.width();
+        int oldHueHeight = hueRect.height();
+        int oldAlphaLeft = alphaRect.left;
+        int oldAlphaRight = alphaRect.right;
+        int oldAlphaTop = alphaRect.top;
 
-        satValBackgroundCache = null;
-        hueBackgroundCache = null;
+        drawingRect.set(getPaddingLeft(), getPaddingTop(), width - getPaddingRight(), height - getPaddingBottom());
 
-        setUpSatValRect();
+        setUpPanelRects();
+        renderStats.panelLayouts++;
+
+        // The cached panels are rendered in bitmap coordinates, so they survive a relayout that keeps their size.
+        if (satValRect.width() != oldSatValWidth || satValRect.height() != oldSatValHeight) {
+            valShader = null;
+            satShader = null;
+            if (satValBackgroundCache != null) {
+                satValBackgroundCache = null;
+                renderStats.cacheInvalidations++;
+            }
+        }
+
+        if (hueBackgroundCache != null && (hueRect.width() != oldHueWidth || hueRect.height() != oldHueHeight)) {
+            hueBackgroundCache = null;
+            renderStats.cacheInvalidations++;
+        }
+
+        // The alpha gradient is laid out in view coordinates.
+        if (alphaShader != null
+                && (alphaRect.left != oldAlphaLeft || alphaRect.right != oldAlphaRight || alphaRect.top != oldAlphaTop)) {
+            alphaShader = null;
+            renderStats.cacheInvalidations++;
+        }
+    }
+
+    private void setUpPanelRects() {
         setUpHueRect();
+        setUpSatValRect();
         setUpAlphaRect();
     }
 
     private void setUpSatValRect() {
+        if (hueWheelMode) {
+            int half = (int) ((hueWheelInnerRadius - panelSpacingPx) / Math.sqrt(2));
+            int cx = Math.round(hueWheelCenterX);
+            int cy = Math.round(hueWheelCenterY);
+
+            satValRect.set(cx - half, cy - half, cx + half, cy + half);
+            return;
+        }
+
         final Rect dRect = drawingRect;
 
         int left = dRect.left + BORDER_WIDTH_PX;
@@ -676,12 +1109,31 @@ public class ColorPickerView extends View {
             bottom -= (alphaPanelHeightPx + panelSpacingPx);
         }
 
-        satValRect = new Rect(left, top, right, bottom);
+        satValRect.set(left, top, right, bottom);
     }
 
     private void setUpHueRect() {
         final Rect dRect = drawingRect;
 
+        if (hueWheelMode) {
+            int bottom = dRect.bottom;
+
+            if (showAlphaPanel) {
+                bottom -= (alphaPanelHeightPx + panelSpacingPx);
+            }
+
+            int size = Math.min(dRect.width(), bottom - dRect.top);
+            int left = dRect.left + (dRect.width() - size) / 2;
+
+            hueRect.set(left, dRect.top, left + size, dRect.top + size);
+
+            hueWheelCenterX = hueRect.exactCenterX();
+            hueWheelCenterY = hueRect.exactCenterY();
+            hueWheelOuterRadius = size / 2f - BORDER_WIDTH_PX;
+            hueWheelInnerRadius = hueWheelOuterRadius - hueRingWidthPx;
+            return;
+        }
+
         int left = dRect.left + BORDER_WIDTH_PX;
         int top = dRect.bottom - huePanelHeightPx + BORDER_WIDTH_PX;
         int bottom = dRect.bottom - BORDER_WIDTH_PX;
@@ -692,12 +1144,16 @@ public class ColorPickerView extends View {
             bottom -= (alphaPanelHeightPx + panelSpacingPx);
         }
 
-        hueRect = new Rect(left, top, right, bottom);
+        hueRect.set(left, top, right, bottom);
     }
 
     private void setUpAlphaRect() {
 
-        if (!showAlphaPanel) return;
+        if (!showAlphaPanel) {
+            alphaRect.setEmpty();
+            alphaRectF.setEmpty();
+            return;
+        }
 
         final Rect dRect = drawingRect;
 
@@ -706,9 +1162,12 @@ public class ColorPickerView extends View {
         int bottom = dRect.bottom - BORDER_WIDTH_PX;
         int right = dRect.right - BORDER_WIDTH_PX;
 
-        alphaRect = new Rect(left, top, right, bottom);
+        alphaRect.set(left, top, right, bottom);
+        alphaRectF.set(alphaRect);
 
-        alphaPatternDrawable = new AlphaPatternDrawable(DrawingUtils.dpToPx(getContext(), 4));
+        if (alphaPatternDrawable == null) {
+            alphaPatternDrawable = new AlphaPatternDrawable(DrawingUtils.dpToPx(getContext(), 4));
+        }
         alphaPatternDrawable.setBounds(Math.round(alphaRect.left), Math.round(alphaRect.top), Math.round(alphaRect.right),
                 Math.round(alphaRect.bottom));
     }
@@ -717,8 +1176,142 @@ public class ColorPickerView extends View {
         onColorChangedListener = listener;
     }
 
+    /**
+     * Subscribes to color changes alongside the {@link OnColorChangedListener}. The listener is called on the given
+     * executor, never on the touch path itself, and the policy decides which events a slow subscriber gets to see.
+     * The subscription lasts until it is unsubscribed or the picker is {@link #unbind() unbound}.
+     */
+    public ColorChangeStream.Subscription subscribe(Executor executor, ColorChangeStream.Policy policy,
+                                                    OnColorChangedListener listener) {
+        return colorChangeStream.subscribe(executor, policy, listener);
+    }
+
+    /**
+     * Binds a recycled picker to a new color and listener, e.g. from {@code onBindViewHolder}, starting the undo
+     * history over from that color. Panel bitmaps are kept across binds; if the view is already laid out the sat/val
+     * panel for the new hue is rendered right away, so a bind issued during RecyclerView's prefetch window leaves
+     * nothing to do at draw time.
+     */
+    public void bind(int color, OnColorChangedListener listener) {
+        startTouchPoint = null;
+        onColorChangedListener = listener;
+        setColor(color, false);
+
+        // Undo must not reach back into colors picked while the view showed another row.
+        if (colorHistory != null) {
+            colorHistory.clear();
+            colorHistory.record(getColor());
+            historyApplied = false;
+        }
+
+        if (satValRect.width() > 0 && satValRect.height() > 0
+                && (satValBackgroundCache == null || satValBackgroundCache.value != hue)) {
+            renderSatValBackground(hue);
+        }
+    }
+
+    /**
+     * Detaches the listener, ends every {@link #subscribe subscription} and drops any in-flight drag so a recycled
+     * picker can't report to its previous owner.
+     */
+    public void unbind() {
+        onColorChangedListener = null;
+        colorChangeStream.unsubscribeAll();
+        startTouchPoint = null;
+        trackerPredicted = false;
+    }
+
+    /**
+     * Enables undo/redo of user edits, keeping at most {@code capacity} colors. Each drag from ACTION_DOWN to
+     * ACTION_UP is recorded as a single entry. A capacity of 0 disables the history.
+     */
+    public void setHistoryCapacity(int capacity) {
+        if (capacity <= 0) {
+            colorHistory = null;
+            return;
+        }
+
+        ColorHistory history = new ColorHistory(capacity);
+        if (colorHistory != null) {
+            history.restore(colorHistory.toArray());
+        }
+        history.record(getColor());
+        colorHistory = history;
+    }
+
+    public ColorHistory getHistory() {
+        return colorHistory;
+    }
+
+    public boolean canUndo() {
+        return colorHistory != null && colorHistory.canUndo();
+    }
+
+    public boolean canRedo() {
+        return colorHistory != null && colorHistory.canRedo();
+    }
+
+    /**
+     * Reverts the last recorded edit and notifies listeners.
+     *
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        applyHistoryColor(colorHistory.undo());
+        return true;
+    }
+
+    /**
+     * Re-applies the last undone edit and notifies listeners.
+     *
+     * @return false if there was nothing to redo
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        applyHistoryColor(colorHistory.redo());
+        return true;
+    }
+
+    private void applyHistoryColor(int color) {
+        setColor(color, true);
+        historyAppliedColor = getColor();
+        historyApplied = true;
+    }
+
+    private void recordHistory(int color) {
+        // The HSV round trip of an undone color may be off by one, which must not count as a new edit.
+        if (historyApplied && color == historyAppliedColor) {
+            return;
+        }
+        historyApplied = false;
+        colorHistory.record(color);
+    }
+
+    /**
+     * Returns the picked color as sRGB. In wide gamut mode colors outside of sRGB are clipped; use
+     * {@link #getColorLong()} to get them unclipped.
+     */
     public int getColor() {
-        return Color.HSVToColor(alpha, new float[]{hue, sat, val});
+        if (snappedIndex >= 0) {
+            return (alpha << 24) | (snapPalette.color(snappedIndex) & 0x00ffffff);
+        }
+        return unsnappedColor();
+    }
+
+    private int unsnappedColor() {
+        if (wideGamut) {
+            ColorMath.hsvToRgb(hue, sat, val, rgbScratch);
+            return DisplayP3.toSrgb(alpha, rgbScratch[0], rgbScratch[1], rgbScratch[2]);
+        }
+        hsvScratch[0] = hue;
+        hsvScratch[1] = sat;
+        hsvScratch[2] = val;
+        return Color.HSVToColor(alpha, hsvScratch);
     }
 
     public void setColor(int color) {
@@ -726,40 +1319,431 @@ public class ColorPickerView extends View {
     }
 
     public void setColor(int color, boolean callback) {
+        if (snapPalette != null) {
+            snappedIndex = snapPalette.nearest(color);
+            color = (color & 0xff000000) | (snapPalette.color(snappedIndex) & 0x00ffffff);
+        }
+
+        alpha = Color.alpha(color);
+        setHsv(color);
 
-        int alpha = Color.alpha(color);
+        onColorSet(callback);
+    }
+
+    private void setHsv(int color) {
         int red = Color.red(color);
         int blue = Color.blue(color);
         int green = Color.green(color);
 
         float[] hsv = new float[3];
 
-        Color.RGBToHSV(red, green, blue, hsv);
+        if (wideGamut) {
+            DisplayP3.fromSrgb(color, rgbScratch);
+            ColorMath.rgbToHsv(rgbScratch[0], rgbScratch[1], rgbScratch[2], hsv);
+        } else {
+            Color.RGBToHSV(red, green, blue, hsv);
+        }
 
-        this.alpha = alpha;
         hue = hsv[0];
         sat = hsv[1];
         val = hsv[2];
+    }
+
+    /**
+     * Returns the picked color, in Display P3 when wide gamut mode is on and in sRGB otherwise.
+     */
+    @RequiresApi(Build.VERSION_CODES.O)
+    public long getColorLong() {
+        if (wideGamut && snappedIndex < 0) {
+            ColorMath.hsvToRgb(hue, sat, val, rgbScratch);
+            return Color.pack(rgbScratch[0], rgbScratch[1], rgbScratch[2], alpha / 255f,
+                    ColorSpace.get(ColorSpace.Named.DISPLAY_P3));
+        }
+        return Color.pack(getColor());
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O)
+    public void setColorLong(long color) {
+        setColorLong(color, false);
+    }
+
+    /**
+     * Sets a color in any color space. Outside of wide gamut mode it is converted to sRGB; in wide gamut mode it is
+     * converted to Display P3, clipping only what lies outside of P3.
+     */
+    @RequiresApi(Build.VERSION_CODES.O)
+    public void setColorLong(long color, boolean callback) {
+        // Palettes are sRGB, so a snapped color goes through the sRGB path as well.
+        if (!wideGamut || snapPalette != null) {
+            setColor(Color.toArgb(color), callback);
+            return;
+        }
+
+        long p3 = Color.convert(color, ColorSpace.get(ColorSpace.Named.DISPLAY_P3));
+        float[] hsv = new float[3];
+        ColorMath.rgbToHsv(clampUnit(Color.red(p3)), clampUnit(Color.green(p3)), clampUnit(Color.blue(p3)), hsv);
+
+        alpha = Math.round(clampUnit(Color.alpha(p3)) * 0xff);
+        hue = hsv[0];
+        sat = hsv[1];
+        val = hsv[2];
+
+        onColorSet(callback);
+    }
+
+    private static float clampUnit(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+
+    private void onColorSet(boolean callback) {
+        trackerPredicted = false;
+
+        if (callback && (onColorChangedListener != null || colorChangeStream.hasSubscribers())) {
+            int newColor = getColor();
+            if (onColorChangedListener != null) {
+                onColorChangedListener.onColorChanged(newColor);
+            }
+            colorChangeStream.publish(newColor);
+        }
+
+        invalidate();
+    }
+
+    public PaletteIndex getSnapPalette() {
+        return snapPalette;
+    }
+
+    /**
+     * Restricts the picked color to the entries of {@code palette}, snapping to the perceptually nearest one. While
+     * dragging, the trackers follow the finger and the sat/val tracker is filled with the snapped swatch; on release
+     * they move to it. {@link #getColor()} and the listeners always see the snapped color with the picker's alpha.
+     * {@code null} turns snapping off.
+     */
+    public void setSnapPalette(PaletteIndex palette) {
+        snapPaletteRequest++;
+        snapPalette = palette;
+        snappedIndex = -1;
+
+        if (palette != null) {
+            setColor(unsnappedColor());
+        } else {
+            invalidate();
+        }
+    }
 
-        if (callback && onColorChangedListener != null) {
-            onColorChangedListener.onColorChanged(Color.HSVToColor(this.alpha, new float[]{hue, sat, val}));
+    /**
+     * Builds a {@link PaletteIndex} for {@code colors} and snaps to it; {@code null} or an empty array turns snapping
+     * off. Indexing takes from a few milliseconds to a couple of hundred for the largest palettes, so prefer
+     * {@link #setSnapPalette(int[], Executor)} for palettes of thousands of colors.
+     */
+    public void setSnapPalette(int[] colors) {
+        setSnapPalette(colors == null || colors.length == 0 ? null : new PaletteIndex(colors));
+    }
+
+    /**
+     * Builds the {@link PaletteIndex} for {@code colors} on {@code executor} and snaps to it on the UI thread once it
+     * is ready, whether or not the view is attached. Until then the previous palette stays in effect; a later call to
+     * any of the setSnapPalette methods wins over a palette still being built.
+     */
+    public void setSnapPalette(int[] colors, Executor executor) {
+        if (colors == null || colors.length == 0) {
+            setSnapPalette((PaletteIndex) null);
+            return;
+        }
+
+        final int request = ++snapPaletteRequest;
+        final int[] copy = colors.clone();
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final PaletteIndex index = new PaletteIndex(copy);
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (request == snapPaletteRequest) {
+                            setSnapPalette(index);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return the index in the {@link #getSnapPalette() palette} of the swatch the color is snapped to, or -1 when
+     * snapping is off
+     */
+    public int getSnappedIndex() {
+        return snappedIndex;
+    }
+
+    /**
+     * Moves the trackers, which followed the finger during the drag, onto the swatch the color snapped to.
+     */
+    private void settleOnSnappedSwatch() {
+        float draggedHue = hue;
+        setHsv(snapPalette.color(snappedIndex));
+
+        // Grays have no hue of their own; keeping the dragged one spares a jump to red and a sat/val panel re-render.
+        if (sat == 0f) {
+            hue = draggedHue;
+        }
+    }
+
+    private void snap() {
+        snappedIndex = snapPalette == null ? -1 : snapPalette.nearest(unsnappedColor());
+    }
+
+    public ImageHistogram getImageHistogram() {
+        return imageHistogram;
+    }
+
+    /**
+     * Overlays the sat/val panel with the density of the histogram's colors near the current hue, showing where the
+     * picked color sits in an image's palette. Call {@link #invalidate()} after adding to the histogram; the overlay
+     * is re-rendered when its {@link ImageHistogram#version() version} changed. {@code null} removes the overlay.
+     */
+    public void setImageHistogram(ImageHistogram histogram) {
+        if (imageColorsTask != null && imageColorsTask.getHistogram() != histogram) {
+            imageColorsTask.cancel();
+            imageColorsTask = null;
+        }
+
+        imageHistogram = histogram;
+        histogramOverlayHueBin = -1;
+
+        if (histogram == null) {
+            histogramOverlay = null;
+            histogramDensity = null;
+            histogramPixels = null;
         }
 
         invalidate();
     }
 
+    /**
+     * Counts the colors of the loader's image on {@code workers} and shows them as an
+     * {@link #setImageHistogram(ImageHistogram) overlay}, refreshed as every tile is counted. The task is cancelled
+     * when another histogram is set or the view is detached; if decoding fails the overlay is removed.
+     */
+    public ImageHistogramLoader.Task showImageColors(ImageHistogramLoader loader, Executor workers) {
+        Executor mainThread = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                post(command);
+            }
+        };
+
+        ImageColorsListener listener = new ImageColorsListener();
+        ImageHistogramLoader.Task task = loader.start(workers, mainThread, listener);
+        listener.task = task;
+
+        setImageHistogram(task.getHistogram());
+        imageColorsTask = task;
+        return task;
+    }
+
+    public int getTouchPredictionMillis() {
+        return touchPredictionMillis;
+    }
+
+    /**
+     * Draws the tracker being dragged where the finger is expected to be this many milliseconds after the last touch
+     * sample, hiding some of the input-to-display latency; about one frame is a good value. The color itself only
+     * ever follows real touch samples. 0, the default, disables the prediction.
+     */
+    public void setTouchPredictionMillis(int millis) {
+        if (millis < 0 || millis > TouchPredictor.MAX_LOOKAHEAD_MILLIS) {
+            throw new IllegalArgumentException("millis must be within [0, " + TouchPredictor.MAX_LOOKAHEAD_MILLIS + "]");
+        }
+        touchPredictionMillis = millis;
+    }
+
+    public boolean isWideGamutEnabled() {
+        return wideGamut;
+    }
+
+    /**
+     * Picks colors in Display P3 instead of sRGB, rendering the panels into P3 bitmaps with half float precision
+     * while they fit the {@link #setPanelCacheBudgetBytes(int) cache budget}. Only has an effect on Android 10 and
+     * later; the hosting window also needs {@code android:colorMode="wideColorGamut"} for colors outside of sRGB to
+     * reach the screen. The current color is kept as it is.
+     */
+    public void setWideGamutEnabled(boolean enabled) {
+        enabled &= Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+
+        if (wideGamut == enabled) {
+            return;
+        }
+
+        int color = getColor();
+        wideGamut = enabled;
+        dropPanelCaches();
+        setColor(color, false);
+    }
+
+    /**
+     * Sets how many bytes the half float panel bitmaps of wide gamut mode may take together. Panels that would
+     * exceed it are rendered with 8 bits per channel instead, at half the size.
+     */
+    public void setPanelCacheBudgetBytes(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes must not be negative");
+        }
+
+        if (panelCacheBudgetBytes != bytes) {
+            panelCacheBudgetBytes = bytes;
+            if (wideGamut) {
+                dropPanelCaches();
+                invalidate();
+            }
+        }
+    }
+
+    public int getPanelCacheBudgetBytes() {
+        return panelCacheBudgetBytes;
+    }
+
+    /**
+     * @return the bytes currently held by the cached panel bitmaps
+     */
+    public int getPanelCacheBytes() {
+        int bytes = 0;
+        if (satValBackgroundCache != null && satValBackgroundCache.bitmap != null) {
+            bytes += satValBackgroundCache.bitmap.getAllocationByteCount();
+        }
+        if (hueBackgroundCache != null && hueBackgroundCache.bitmap != null) {
+            bytes += hueBackgroundCache.bitmap.getAllocationByteCount();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the config the panels are rendered with, or null if none is cached yet
+     */
+    public Bitmap.Config getPanelBitmapConfig() {
+        if (satValBackgroundCache != null && satValBackgroundCache.bitmap != null) {
+            return satValBackgroundCache.bitmap.getConfig();
+        }
+        return hueBackgroundCache != null ? hueBackgroundCache.bitmap.getConfig() : null;
+    }
+
+    /**
+     * Drops half float panels for 8888 ones, until the view is attached again.
+     */
+    void onMemoryPressure() {
+        if (memoryPressure) {
+            return;
+        }
+
+        memoryPressure = true;
+
+        Config config = getPanelBitmapConfig();
+        if (config != null && config != Config.ARGB_8888) {
+            dropPanelCaches();
+            invalidate();
+        }
+    }
+
+    private Bitmap createPanelBitmap(int width, int height) {
+        if (wideGamut && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return WideGamut.createBitmap(width, height, useHalfFloatPanels());
+        }
+        return Bitmap.createBitmap(width, height, Config.ARGB_8888);
+    }
+
+    private boolean useHalfFloatPanels() {
+        if (memoryPressure) {
+            return false;
+        }
+
+        long pixels = (long) satValRect.width() * satValRect.height() + (long) hueRect.width() * hueRect.height();
+        return pixels * HALF_FLOAT_BYTES_PER_PIXEL <= panelCacheBudgetBytes;
+    }
+
+    private void setHueColor(Paint paint, float hue) {
+        if (wideGamut && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ColorMath.hsvToRgb(hue, 1f, 1f, rgbScratch);
+            WideGamut.setColor(paint, WideGamut.pack(rgbScratch[0], rgbScratch[1], rgbScratch[2], 1f));
+        } else {
+            paint.setColor(Color.HSVToColor(new float[]{hue, 1f, 1f}));
+        }
+    }
+
+    private void dropPanelCaches() {
+        valShader = null;
+        satShader = null;
+        alphaShader = null;
+        hueBackgroundCache = null;
+        satValBackgroundCache = null;
+    }
+
+    /**
+     * Shows or hides the alpha slider. When the view keeps its size, the panels are laid out again right away and
+     * only the caches of panels whose size changed are dropped.
+     */
     public void setAlphaSliderVisible(boolean visible) {
         if (showAlphaPanel != visible) {
             showAlphaPanel = visible;
 
-            valShader = null;
-            satShader = null;
-            alphaShader = null;
+            if (isLaidOut()) {
+                layoutPanels(getWidth(), getHeight());
+            }
+
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    public boolean isHueWheelEnabled() {
+        return hueWheelMode;
+    }
+
+    /**
+     * Switches between the linear hue slider below the sat/val panel and a hue ring drawn around it.
+     */
+    public void setHueWheelEnabled(boolean enabled) {
+        if (hueWheelMode != enabled) {
+            hueWheelMode = enabled;
+
+            // The hue panel changes its content, not just its size; the sat/val panel is left to the layout.
             hueBackgroundCache = null;
-            satValBackgroundCache = null;
+
+            if (isLaidOut()) {
+                layoutPanels(getWidth(), getHeight());
+            }
 
             requestLayout();
+            invalidate();
+        }
+    }
+
+    public ColorVisionDeficiency getColorVisionDeficiency() {
+        return colorVisionDeficiency;
+    }
+
+    /**
+     * Shows the panels as seen with the given deficiency, or normally for {@code null}. The simulation is a color
+     * filter applied while drawing, so the cached panel bitmaps are reused as they are.
+     */
+    public void setColorVisionDeficiency(ColorVisionDeficiency deficiency) {
+        if (colorVisionDeficiency == deficiency) {
+            return;
         }
+
+        colorVisionDeficiency = deficiency;
+
+        ColorMatrixColorFilter filter = deficiency == null
+                ? null : new ColorMatrixColorFilter(deficiency.toColorMatrixArray());
+
+        panelBitmapPaint.setColorFilter(filter);
+        alphaPaint.setColorFilter(filter);
+        hueAlphaTrackerPaint.setColorFilter(filter);
+        snapSwatchPaint.setColorFilter(filter);
+
+        invalidate();
     }
 
     public int getSliderTrackerColor() {
@@ -800,10 +1784,103 @@ public class ColorPickerView extends View {
         void onColorChanged(int newColor);
     }
 
+    /**
+     * The API 29 calls of wide gamut mode, kept apart so the view itself still loads on older releases.
+     */
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static final class WideGamut {
+
+        static final ColorSpace DISPLAY_P3 = ColorSpace.get(ColorSpace.Named.DISPLAY_P3);
+
+        static Bitmap createBitmap(int width, int height, boolean halfFloat) {
+            return Bitmap.createBitmap(width, height, halfFloat ? Config.RGBA_F16 : Config.ARGB_8888, true,
+                    DISPLAY_P3);
+        }
+
+        static long pack(float red, float green, float blue, float alpha) {
+            return Color.pack(red, green, blue, alpha, DISPLAY_P3);
+        }
+
+        static Shader linearGradient(float x0, float y0, float x1, float y1, long color0, long color1) {
+            return new LinearGradient(x0, y0, x1, y1, color0, color1, TileMode.CLAMP);
+        }
+
+        static Shader sweepGradient(float cx, float cy, long[] colors) {
+            return new SweepGradient(cx, cy, colors, null);
+        }
+
+        static void setColor(Paint paint, long color) {
+            paint.setColor(color);
+        }
+    }
+
+    /**
+     * The inputs the panel geometry depends on: the measure specs or view size, the padding and which panels are
+     * shown. Lets repeated measure and layout passes that change none of them skip the work.
+     */
+    private static final class LayoutKey {
+
+        private boolean valid;
+        private int width;
+        private int height;
+        private int paddingLeft;
+        private int paddingTop;
+        private int paddingRight;
+        private int paddingBottom;
+        private boolean alphaPanel;
+        private boolean hueWheel;
+
+        /**
+         * @return true if any input differs from the previous call
+         */
+        boolean update(int width, int height, int paddingLeft, int paddingTop, int paddingRight, int paddingBottom,
+                       boolean alphaPanel, boolean hueWheel) {
+            if (valid && this.width == width && this.height == height
+                    && this.paddingLeft == paddingLeft && this.paddingTop == paddingTop
+                    && this.paddingRight == paddingRight && this.paddingBottom == paddingBottom
+                    && this.alphaPanel == alphaPanel && this.hueWheel == hueWheel) {
+                return false;
+            }
+
+            this.valid = true;
+            this.width = width;
+            this.height = height;
+            this.paddingLeft = paddingLeft;
+            this.paddingTop = paddingTop;
+            this.paddingRight = paddingRight;
+            this.paddingBottom = paddingBottom;
+            this.alphaPanel = alphaPanel;
+            this.hueWheel = hueWheel;
+            return true;
+        }
+    }
+
     private class BitmapCache {
 
         public Canvas canvas;
         public Bitmap bitmap;
         public float value;
     }
+
+    private final class ImageColorsListener implements ImageHistogramLoader.Listener {
+
+        ImageHistogramLoader.Task task;
+
+        @Override
+        public void onTileCounted(ImageHistogram histogram, int tilesDone, int tileCount) {
+            invalidate();
+        }
+
+        @Override
+        public void onComplete(ImageHistogram histogram) {
+            invalidate();
+        }
+
+        @Override
+        public void onError(IOException e) {
+            if (imageColorsTask == task) {
+                setImageHistogram(null);
+            }
+        }
+    }
 }
\ No newline at end of file
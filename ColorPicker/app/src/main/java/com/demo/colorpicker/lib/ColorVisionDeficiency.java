@@ -0,0 +1,71 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Dichromat color vision, simulated with the full severity matrices of Machado, Oliveira and Fernandes (2009).
+ * The matrices operate on linear RGB.
+ */
+public enum ColorVisionDeficiency {
+
+    PROTANOPIA(new float[]{
+            0.152286f, 1.052583f, -0.204868f,
+            0.114503f, 0.786281f, 0.099216f,
+            -0.003882f, -0.048116f, 1.051998f}),
+
+    DEUTERANOPIA(new float[]{
+            0.367322f, 0.860646f, -0.227968f,
+            0.280085f, 0.672501f, 0.047413f,
+            -0.011820f, 0.042940f, 0.968881f}),
+
+    TRITANOPIA(new float[]{
+            1.255528f, -0.076749f, -0.178779f,
+            -0.078411f, 0.930809f, 0.147602f,
+            0.004733f, 0.691367f, 0.303900f});
+
+    private final float[] matrix;
+
+    ColorVisionDeficiency(float[] matrix) {
+        this.matrix = matrix;
+    }
+
+    /**
+     * Returns how the color is seen with this deficiency. Alpha is kept.
+     */
+    public int simulate(int color) {
+        return transform(color, matrix);
+    }
+
+    /**
+     * Batch variant of {@link #simulate(int)} for exporting palettes; {@code src} and {@code dst} may be the same array.
+     */
+    public void simulate(int[] src, int srcOffset, int[] dst, int dstOffset, int count) {
+        final float[] m = matrix;
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] = transform(src[srcOffset + i], m);
+        }
+    }
+
+    /**
+     * The matrix as a 4x5 {@link android.graphics.ColorMatrix} array.
+     * A color filter runs on the gamma encoded values of the bitmap it draws, so on screen this is the usual
+     * approximation of the linear simulation above, close enough for previewing the picker panels.
+     */
+    public float[] toColorMatrixArray() {
+        final float[] m = matrix;
+        return new float[]{
+                m[0], m[1], m[2], 0f, 0f,
+                m[3], m[4], m[5], 0f, 0f,
+                m[6], m[7], m[8], 0f, 0f,
+                0f, 0f, 0f, 1f, 0f};
+    }
+
+    private static int transform(int color, float[] m) {
+        float r = ColorMath.srgbToLinear(color >> 16);
+        float g = ColorMath.srgbToLinear(color >> 8);
+        float b = ColorMath.srgbToLinear(color);
+
+        return ColorMath.argb(color >>> 24,
+                ColorMath.linearToSrgb(m[0] * r + m[1] * g + m[2] * b),
+                ColorMath.linearToSrgb(m[3] * r + m[4] * g + m[5] * b),
+                ColorMath.linearToSrgb(m[6] * r + m[7] * g + m[8] * b));
+    }
+}
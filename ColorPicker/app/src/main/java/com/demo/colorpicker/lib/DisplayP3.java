@@ -0,0 +1,75 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Conversions between sRGB and Display P3 at float precision, without going through {@link android.graphics.ColorSpace}
+ * so they can run on any API level and in plain JVM tests. Both spaces share the D65 white point and the sRGB transfer
+ * function, so only the linear primaries differ.
+ */
+final class DisplayP3 {
+
+    private final static float[] SRGB_TO_P3 = {
+            0.8224621f, 0.1775380f, 0f,
+            0.0331941f, 0.9668058f, 0f,
+            0.0170827f, 0.0723974f, 0.9105199f
+    };
+
+    private final static float[] P3_TO_SRGB = {
+            1.2249401f, -0.2249404f, 0f,
+            -0.0420569f, 1.0420571f, 0f,
+            -0.0196376f, -0.0786361f, 1.0982735f
+    };
+
+    private DisplayP3() {
+    }
+
+    /**
+     * Writes the gamma encoded Display P3 components in [0, 1] of an sRGB color into {@code p3}.
+     */
+    static void fromSrgb(int color, float[] p3) {
+        float r = ColorMath.srgbToLinear(color >> 16);
+        float g = ColorMath.srgbToLinear(color >> 8);
+        float b = ColorMath.srgbToLinear(color);
+
+        final float[] m = SRGB_TO_P3;
+        p3[0] = ColorMath.encodeSrgb(clamp(m[0] * r + m[1] * g + m[2] * b));
+        p3[1] = ColorMath.encodeSrgb(clamp(m[3] * r + m[4] * g + m[5] * b));
+        p3[2] = ColorMath.encodeSrgb(clamp(m[6] * r + m[7] * g + m[8] * b));
+    }
+
+    /**
+     * Converts gamma encoded Display P3 components to the nearest sRGB color, clipping what lies outside of sRGB.
+     */
+    static int toSrgb(int alpha, float r, float g, float b) {
+        r = ColorMath.decodeSrgb(r);
+        g = ColorMath.decodeSrgb(g);
+        b = ColorMath.decodeSrgb(b);
+
+        final float[] m = P3_TO_SRGB;
+        return ColorMath.argb(alpha,
+                ColorMath.linearToSrgb(m[0] * r + m[1] * g + m[2] * b),
+                ColorMath.linearToSrgb(m[3] * r + m[4] * g + m[5] * b),
+                ColorMath.linearToSrgb(m[6] * r + m[7] * g + m[8] * b));
+    }
+
+    /**
+     * @return true if the gamma encoded Display P3 color lies within sRGB, allowing for float rounding
+     */
+    static boolean isInSrgb(float r, float g, float b) {
+        r = ColorMath.decodeSrgb(r);
+        g = ColorMath.decodeSrgb(g);
+        b = ColorMath.decodeSrgb(b);
+
+        final float[] m = P3_TO_SRGB;
+        return inUnit(m[0] * r + m[1] * g + m[2] * b)
+                && inUnit(m[3] * r + m[4] * g + m[5] * b)
+                && inUnit(m[6] * r + m[7] * g + m[8] * b);
+    }
+
+    private static boolean inUnit(float value) {
+        return value >= -1e-4f && value <= 1f + 1e-4f;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
@@ -0,0 +1,56 @@
+package com.demo.colorpicker.lib;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+
+/**
+ * Keeps a horizontal preview bitmap of a {@link ColorGradient}, re-rendered only when the gradient or the requested
+ * size changes, the same way the picker caches its hue panel. Must be used from one thread, typically the UI thread.
+ */
+public final class GradientPreview {
+
+    private Bitmap bitmap;
+    private ColorGradient gradient;
+    private int[] row;
+
+    /**
+     * Returns the preview for {@code gradient} at the given size. The returned bitmap is reused by later calls, so
+     * copy it if it has to outlive the next one.
+     */
+    public Bitmap getBitmap(ColorGradient gradient, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+
+        boolean resized = bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height;
+
+        if (resized) {
+            bitmap = Bitmap.createBitmap(width, height, Config.ARGB_8888);
+        }
+
+        if (resized || this.gradient != gradient) {
+            if (row == null || row.length != width) {
+                row = new int[width];
+            }
+
+            gradient.fill(row, 0, width);
+
+            for (int y = 0; y < height; y++) {
+                bitmap.setPixels(row, 0, width, 0, y, width, 1);
+            }
+
+            this.gradient = gradient;
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Drops the cached bitmap.
+     */
+    public void release() {
+        bitmap = null;
+        gradient = null;
+        row = null;
+    }
+}
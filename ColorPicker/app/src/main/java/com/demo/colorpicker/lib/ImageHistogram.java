@@ -0,0 +1,176 @@
+package com.demo.colorpicker.lib;
+
+import java.util.Arrays;
+
+/**
+ * A color histogram of an image over quantized HSV: {@value #HUE_BINS} hue bins of 10 degrees, {@value #SAT_BINS}
+ * saturation bins and {@value #VAL_BINS} value bins, counted in one flat int array.
+ * <p>
+ * Binning uses integer math only, so feeding it tens of megapixels stays cheap. All methods are synchronized; the
+ * usual pattern is to count a tile into a thread-confined histogram and {@link #merge(ImageHistogram)} it into the
+ * shared one, which keeps the lock out of the per-pixel loop.
+ */
+public final class ImageHistogram {
+
+    public static final int HUE_BINS = 36;
+    public static final int SAT_BINS = 32;
+    public static final int VAL_BINS = 32;
+
+    private static final int BIN_COUNT = HUE_BINS * SAT_BINS * VAL_BINS;
+
+    private final int[] counts = new int[BIN_COUNT];
+    private long total;
+    private int version;
+
+    /**
+     * Counts {@code count} ARGB pixels starting at {@code offset}. Fully transparent pixels are skipped.
+     */
+    public synchronized void add(int[] pixels, int offset, int count) {
+        final int[] c = counts;
+        int added = 0;
+
+        for (int i = offset, end = offset + count; i < end; i++) {
+            int color = pixels[i];
+            if ((color >>> 24) == 0) {
+                continue;
+            }
+            c[binOf(color)]++;
+            added++;
+        }
+
+        if (added > 0) {
+            total += added;
+            version++;
+        }
+    }
+
+    /**
+     * Adds the counts of {@code other} to this histogram. Both are locked while merging, so two histograms must not
+     * be merged into each other concurrently.
+     */
+    public void merge(ImageHistogram other) {
+        synchronized (other) {
+            if (other.total == 0) {
+                return;
+            }
+
+            synchronized (this) {
+                final int[] source = other.counts;
+                for (int i = 0; i < BIN_COUNT; i++) {
+                    counts[i] += source[i];
+                }
+                total += other.total;
+                version++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        version++;
+    }
+
+    /**
+     * @return the number of pixels counted
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * Changes whenever pixels are added, merged or cleared, so cached renderings can tell they are stale.
+     */
+    public synchronized int version() {
+        return version;
+    }
+
+    /**
+     * @return the number of counted pixels that fall into the same bin as {@code color}
+     */
+    public synchronized int count(int color) {
+        return counts[binOf(color)];
+    }
+
+    public synchronized int count(int hueBin, int satBin, int valBin) {
+        return counts[index(hueBin, satBin, valBin)];
+    }
+
+    /**
+     * Projects the pixels with a hue near {@code hue} onto the saturation/value square, writing
+     * {@code SAT_BINS * VAL_BINS} counts into {@code out}, indexed {@code valBin * SAT_BINS + satBin}. Hue is
+     * meaningless for the least saturated bin, so its pixels are counted whatever their hue.
+     *
+     * @param hueRadiusBins how many neighbouring hue bins on each side to include
+     * @return the largest count written
+     */
+    public synchronized int satValDensity(float hue, int hueRadiusBins, int[] out) {
+        int center = hueBin(hue);
+        int first = -Math.min(hueRadiusBins, HUE_BINS / 2);
+        // A window of the whole circle must not count the bin opposite to the center twice.
+        int last = Math.min(hueRadiusBins, HUE_BINS / 2 - 1);
+        int max = 0;
+
+        for (int v = 0; v < VAL_BINS; v++) {
+            for (int s = 0; s < SAT_BINS; s++) {
+                int sum = 0;
+
+                if (s == 0) {
+                    for (int h = 0; h < HUE_BINS; h++) {
+                        sum += counts[index(h, s, v)];
+                    }
+                } else {
+                    for (int d = first; d <= last; d++) {
+                        sum += counts[index((center + d + HUE_BINS) % HUE_BINS, s, v)];
+                    }
+                }
+
+                out[v * SAT_BINS + s] = sum;
+                max = Math.max(max, sum);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * @return the hue bin of a hue in degrees, wrapping around the circle
+     */
+    static int hueBin(float hue) {
+        return ((int) Math.floor(hue * HUE_BINS / 360f) % HUE_BINS + HUE_BINS) % HUE_BINS;
+    }
+
+    static int binOf(int color) {
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        int delta = max - min;
+
+        int hue;
+        if (delta == 0) {
+            hue = 0;
+        } else if (max == r) {
+            hue = 60 * (g - b) / delta;
+        } else if (max == g) {
+            hue = 120 + 60 * (b - r) / delta;
+        } else {
+            hue = 240 + 60 * (r - g) / delta;
+        }
+        if (hue < 0) {
+            hue += 360;
+        }
+
+        int hueBin = Math.min(HUE_BINS - 1, hue * HUE_BINS / 360);
+        int satBin = max == 0 ? 0 : Math.min(SAT_BINS - 1, delta * SAT_BINS / max);
+        int valBin = max * VAL_BINS / 256;
+
+        return index(hueBin, satBin, valBin);
+    }
+
+    private static int index(int hueBin, int satBin, int valBin) {
+        return (hueBin * SAT_BINS + satBin) * VAL_BINS + valBin;
+    }
+}
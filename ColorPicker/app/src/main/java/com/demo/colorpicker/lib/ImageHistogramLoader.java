@@ -0,0 +1,327 @@
+package com.demo.colorpicker.lib;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds an {@link ImageHistogram} of an image of any size by decoding it in tiles with {@link BitmapRegionDecoder},
+ * so at no point more than one tile per worker is held in memory.
+ * <p>
+ * Every worker opens its own decoder, as a single decoder serializes its calls, then claims tiles until none are
+ * left. A worker counts a tile into a private histogram, reusing its tile bitmap and pixel buffer, and merges the
+ * result into the shared histogram, which is reported after every tile so the colors can be shown while the rest of
+ * the image is still being decoded.
+ */
+public final class ImageHistogramLoader {
+
+    private final static int DEFAULT_TILE_SIZE = 1024;
+
+    /**
+     * Opens the encoded image; called once per worker, so it must return a fresh stream every time.
+     */
+    public interface Source {
+
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Progress callbacks, delivered on the callback executor.
+     */
+    public interface Listener {
+
+        /**
+         * A tile was counted into the histogram.
+         */
+        void onTileCounted(ImageHistogram histogram, int tilesDone, int tileCount);
+
+        void onComplete(ImageHistogram histogram);
+
+        void onError(IOException e);
+    }
+
+    public interface Task {
+
+        /**
+         * Stops claiming tiles; tiles being decoded finish but are not reported.
+         */
+        void cancel();
+
+        /**
+         * Whether the histogram is final: every tile was counted, or the task failed or was cancelled.
+         */
+        boolean isDone();
+
+        ImageHistogram getHistogram();
+    }
+
+    private final Source source;
+    private int tileSize = DEFAULT_TILE_SIZE;
+    private int sampleSize = 1;
+    private int parallelism = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    public ImageHistogramLoader(Source source) {
+        if (source == null) {
+            throw new NullPointerException("source must not be null");
+        }
+        this.source = source;
+    }
+
+    /**
+     * Sets the edge length of the square tiles in image pixels. Each worker holds one decoded tile, so memory use is
+     * about {@code parallelism * (tileSize / sampleSize)^2 * 4} bytes.
+     */
+    public ImageHistogramLoader setTileSize(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tileSize must be positive");
+        }
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Decodes every {@code sampleSize}-th pixel in each direction, see {@link BitmapFactory.Options#inSampleSize}.
+     * A distribution needs far fewer pixels than a photo has, so 2 to 4 is a good value for very large images.
+     */
+    public ImageHistogramLoader setSampleSize(int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("sampleSize must be positive");
+        }
+        this.sampleSize = sampleSize;
+        return this;
+    }
+
+    public ImageHistogramLoader setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Starts decoding on {@code workers}, which should be able to run {@link #setParallelism(int) parallelism} tasks
+     * at once, and reports to {@code listener} on {@code callbacks}.
+     */
+    public Task start(Executor workers, Executor callbacks, Listener listener) {
+        if (workers == null || callbacks == null || listener == null) {
+            throw new NullPointerException("workers, callbacks and listener must not be null");
+        }
+
+        final Job job = new Job(workers, callbacks, listener, tileSize, sampleSize, parallelism);
+        workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                job.plan();
+            }
+        });
+        return job;
+    }
+
+    private final class Job implements Task {
+
+        private final Executor workers;
+        private final Executor callbacks;
+        private final Listener listener;
+        private final int tileSize;
+        private final int sampleSize;
+        private final int parallelism;
+
+        private final ImageHistogram histogram = new ImageHistogram();
+        private final AtomicInteger nextTile = new AtomicInteger();
+        private final AtomicInteger tilesDone = new AtomicInteger();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private volatile boolean finished;
+
+        // Written by plan() before any worker is submitted.
+        private int imageWidth;
+        private int imageHeight;
+        private int columns;
+        private int tileCount;
+
+        Job(Executor workers, Executor callbacks, Listener listener, int tileSize, int sampleSize, int parallelism) {
+            this.workers = workers;
+            this.callbacks = callbacks;
+            this.listener = listener;
+            this.tileSize = tileSize;
+            this.sampleSize = sampleSize;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public void cancel() {
+            stopped.set(true);
+        }
+
+        @Override
+        public boolean isDone() {
+            return finished || stopped.get();
+        }
+
+        @Override
+        public ImageHistogram getHistogram() {
+            return histogram;
+        }
+
+        void plan() {
+            final BitmapRegionDecoder decoder;
+            try {
+                decoder = openDecoder();
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+
+            imageWidth = decoder.getWidth();
+            imageHeight = decoder.getHeight();
+            columns = (imageWidth + tileSize - 1) / tileSize;
+            tileCount = columns * ((imageHeight + tileSize - 1) / tileSize);
+
+            if (tileCount == 0) {
+                decoder.recycle();
+                complete();
+                return;
+            }
+
+            for (int i = 1; i < Math.min(parallelism, tileCount); i++) {
+                try {
+                    workers.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                countTiles(openDecoder());
+                            } catch (IOException e) {
+                                fail(e);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Workers forked so far stop at their next tile, as the failure marks the job stopped.
+                    decoder.recycle();
+                    fail(new IOException("Workers rejected the histogram task", e));
+                    return;
+                }
+            }
+
+            countTiles(decoder);
+        }
+
+        private void countTiles(BitmapRegionDecoder decoder) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize;
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            options.inMutable = true;
+
+            ImageHistogram tileHistogram = new ImageHistogram();
+            Rect region = new Rect();
+            int[] row = null;
+            int fullTile = (tileSize + sampleSize - 1) / sampleSize;
+
+            try {
+                int tile;
+                while (!stopped.get() && (tile = nextTile.getAndIncrement()) < tileCount) {
+                    int left = (tile % columns) * tileSize;
+                    int top = (tile / columns) * tileSize;
+                    region.set(left, top, Math.min(left + tileSize, imageWidth), Math.min(top + tileSize, imageHeight));
+
+                    Bitmap bitmap = decoder.decodeRegion(region, options);
+                    if (bitmap == null) {
+                        fail(new IOException("Could not decode " + region));
+                        return;
+                    }
+
+                    // A reused bitmap keeps its size; the region is decoded into its top left corner.
+                    int width = Math.min(bitmap.getWidth(), (region.width() + sampleSize - 1) / sampleSize);
+                    int height = Math.min(bitmap.getHeight(), (region.height() + sampleSize - 1) / sampleSize);
+
+                    if (row == null || row.length < width) {
+                        row = new int[width];
+                    }
+
+                    for (int y = 0; y < height; y++) {
+                        bitmap.getPixels(row, 0, width, 0, y, width, 1);
+                        tileHistogram.add(row, 0, width);
+                    }
+
+                    // Only a full tile is large enough to decode every later region into.
+                    if (bitmap.getWidth() >= fullTile && bitmap.getHeight() >= fullTile) {
+                        options.inBitmap = bitmap;
+                    } else {
+                        bitmap.recycle();
+                    }
+
+                    histogram.merge(tileHistogram);
+                    tileHistogram.clear();
+                    tileCounted(tilesDone.incrementAndGet());
+                }
+            } finally {
+                decoder.recycle();
+                if (options.inBitmap != null) {
+                    options.inBitmap.recycle();
+                }
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private BitmapRegionDecoder openDecoder() throws IOException {
+            InputStream stream = source.open();
+            try {
+                return BitmapRegionDecoder.newInstance(stream, false);
+            } finally {
+                stream.close();
+            }
+        }
+
+        private void tileCounted(final int done) {
+            if (stopped.get()) {
+                return;
+            }
+
+            callbacks.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!stopped.get()) {
+                        listener.onTileCounted(histogram, done, tileCount);
+                    }
+                }
+            });
+
+            if (done == tileCount) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            finished = true;
+            callbacks.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!stopped.get()) {
+                        listener.onComplete(histogram);
+                    }
+                }
+            });
+        }
+
+        private void fail(final IOException e) {
+            if (!stopped.compareAndSet(false, true)) {
+                return;
+            }
+
+            callbacks.execute(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onError(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.demo.colorpicker.lib;
+
+import java.util.Arrays;
+
+/**
+ * Finds the perceptually nearest entry of a fixed palette, by distance in OKLab, at a bounded cost per lookup.
+ * <p>
+ * Entries are kept in a k-d tree over OKLab whose nodes split at the median of their widest axis and record the
+ * tight bounds of their entries, so clustered palettes, the usual kind for brand colors, split as finely as uniform
+ * ones. The nearest entry is also precomputed for every point of a {@value #LATTICE_SIZE}^3 lattice over the sRGB
+ * cube. A lookup starts from the closest of the entries stored at the 8 lattice points around the color, which is
+ * nearly always the answer already, and then searches the tree only where a closer entry could still be. The search
+ * stops after {@value #MAX_LOOKUP_SCAN} entries, returning the closest seen, which is never further away than the
+ * lattice's answer; palettes need pathological layouts to reach that cap.
+ * <p>
+ * Lookups share scratch state, so an index must not be queried from several threads at once; building one off the UI
+ * thread is fine, and recommended for thousands of entries.
+ */
+public final class PaletteIndex {
+
+    public static final int MAX_SIZE = 65536;
+
+    private final static int LATTICE_SHIFT = 3;
+    private final static int LATTICE_SIZE = (0xff >> LATTICE_SHIFT) + 2;
+    private final static int LEAF_SIZE = 8;
+    final static int MAX_LOOKUP_SCAN = 1024;
+
+    private final int[] colors;
+    private final float[] labs;
+
+    // Unique colors only, permuted so every tree node covers a contiguous range; node n has children 2n+1 and 2n+2.
+    private final int[] order;
+    private final float[] bounds;
+
+    private final char[] lattice;
+
+    private final float[] lab = new float[3];
+    private float queryL;
+    private float queryA;
+    private float queryB;
+    private int best;
+    private float bestDistance;
+    private int scanned;
+    private int scanLimit;
+
+    /**
+     * Indexes {@code colors}; their alpha is ignored. Duplicates are allowed, a lookup returns the first of them.
+     */
+    public PaletteIndex(int[] colors) {
+        if (colors == null || colors.length == 0 || colors.length > MAX_SIZE) {
+            throw new IllegalArgumentException("A palette needs 1 to " + MAX_SIZE + " colors");
+        }
+
+        final int count = colors.length;
+        this.colors = colors.clone();
+        labs = new float[count * 3];
+
+        for (int i = 0; i < count; i++) {
+            ColorMath.toOklab(colors[i], lab);
+            System.arraycopy(lab, 0, labs, i * 3, 3);
+        }
+
+        order = firstOfEachColor(colors);
+
+        int depth = 0;
+        for (int size = order.length; size > LEAF_SIZE; size = (size + 1) / 2) {
+            depth++;
+        }
+        bounds = new float[((1 << (depth + 1)) - 1) * 6];
+        buildTree(0, 0, order.length);
+
+        lattice = new char[LATTICE_SIZE * LATTICE_SIZE * LATTICE_SIZE];
+        scanLimit = Integer.MAX_VALUE;
+        int previous = order[0];
+        int n = 0;
+
+        for (int r = 0; r < LATTICE_SIZE; r++) {
+            for (int g = 0; g < LATTICE_SIZE; g++) {
+                for (int b = 0; b < LATTICE_SIZE; b++) {
+                    ColorMath.linearToOklab(latticeChannel(r), latticeChannel(g), latticeChannel(b), lab);
+                    startQuery(lab[0], lab[1], lab[2]);
+                    // Neighbouring lattice points mostly share their nearest entry, which makes a tight first bound.
+                    consider(previous);
+                    search(0, 0, order.length);
+
+                    previous = best;
+                    lattice[n++] = (char) best;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return colors.length;
+    }
+
+    /**
+     * @return the palette color at {@code index}, as passed to the constructor
+     */
+    public int color(int index) {
+        return colors[index];
+    }
+
+    /**
+     * @return the index of the palette entry nearest to the opaque part of {@code color}
+     */
+    public int nearest(int color) {
+        ColorMath.toOklab(color, lab);
+        startQuery(lab[0], lab[1], lab[2]);
+
+        // Every channel lies between lattice points i and i + 1; 0xff >> LATTICE_SHIFT is below the last one.
+        int base = ((((color >> 16) & 0xff) >> LATTICE_SHIFT) * LATTICE_SIZE
+                + (((color >> 8) & 0xff) >> LATTICE_SHIFT)) * LATTICE_SIZE
+                + ((color & 0xff) >> LATTICE_SHIFT);
+
+        for (int corner = 0; corner < 8; corner++) {
+            int point = base;
+            if ((corner & 4) != 0) {
+                point += LATTICE_SIZE * LATTICE_SIZE;
+            }
+            if ((corner & 2) != 0) {
+                point += LATTICE_SIZE;
+            }
+            if ((corner & 1) != 0) {
+                point++;
+            }
+
+            int candidate = lattice[point];
+            if (candidate != best) {
+                consider(candidate);
+            }
+        }
+
+        scanLimit = MAX_LOOKUP_SCAN;
+        search(0, 0, order.length);
+
+        return best;
+    }
+
+    /**
+     * @return how many entries the last {@link #nearest(int)} scanned after the lattice, at most {@value #MAX_LOOKUP_SCAN}
+     */
+    int lastScanned() {
+        return scanned;
+    }
+
+    /**
+     * Scans the whole palette; the reference {@link #nearest(int)} is measured against.
+     */
+    int nearestExhaustive(int color) {
+        ColorMath.toOklab(color, lab);
+        startQuery(lab[0], lab[1], lab[2]);
+
+        for (int i = 0; i < colors.length; i++) {
+            consider(i);
+        }
+
+        return best;
+    }
+
+    private void buildTree(int node, int from, int to) {
+        final int offset = node * 6;
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[offset + axis] = Float.MAX_VALUE;
+            bounds[offset + 3 + axis] = -Float.MAX_VALUE;
+        }
+        for (int i = from; i < to; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                float value = labs[order[i] * 3 + axis];
+                bounds[offset + axis] = Math.min(bounds[offset + axis], value);
+                bounds[offset + 3 + axis] = Math.max(bounds[offset + 3 + axis], value);
+            }
+        }
+
+        if (to - from <= LEAF_SIZE) {
+            return;
+        }
+
+        int axis = 0;
+        for (int i = 1; i < 3; i++) {
+            if (bounds[offset + 3 + i] - bounds[offset + i] > bounds[offset + 3 + axis] - bounds[offset + axis]) {
+                axis = i;
+            }
+        }
+
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, axis);
+        buildTree(node * 2 + 1, from, middle);
+        buildTree(node * 2 + 2, middle, to);
+    }
+
+    /**
+     * Partially sorts {@code order} between {@code left} and {@code right}, inclusive, so the entry at {@code k} is
+     * the one that belongs there by {@code axis}, with no larger one before it and no smaller one after it.
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            float pivot = labs[order[(left + right) >>> 1] * 3 + axis];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (labs[order[i] * 3 + axis] < pivot) {
+                    i++;
+                }
+                while (labs[order[j] * 3 + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void startQuery(float l, float a, float b) {
+        queryL = l;
+        queryA = a;
+        queryB = b;
+        best = -1;
+        bestDistance = Float.MAX_VALUE;
+        scanned = 0;
+    }
+
+    private void search(int node, int from, int to) {
+        // An entry exactly as far as the best one may still win the tie, so only strictly further nodes are skipped.
+        if (scanned >= scanLimit || boundsDistance(node) > bestDistance) {
+            return;
+        }
+
+        if (to - from <= LEAF_SIZE) {
+            for (int i = from; i < to; i++) {
+                consider(order[i]);
+            }
+            scanned += to - from;
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        int left = node * 2 + 1;
+        int right = node * 2 + 2;
+
+        if (boundsDistance(left) <= boundsDistance(right)) {
+            search(left, from, middle);
+            search(right, middle, to);
+        } else {
+            search(right, middle, to);
+            search(left, from, middle);
+        }
+    }
+
+    private float boundsDistance(int node) {
+        final int offset = node * 6;
+        float dl = Math.max(0f, Math.max(bounds[offset] - queryL, queryL - bounds[offset + 3]));
+        float da = Math.max(0f, Math.max(bounds[offset + 1] - queryA, queryA - bounds[offset + 4]));
+        float db = Math.max(0f, Math.max(bounds[offset + 2] - queryB, queryB - bounds[offset + 5]));
+        return dl * dl + da * da + db * db;
+    }
+
+    private void consider(int entry) {
+        float dl = labs[entry * 3] - queryL;
+        float da = labs[entry * 3 + 1] - queryA;
+        float db = labs[entry * 3 + 2] - queryB;
+        float distance = dl * dl + da * da + db * db;
+
+        // Ties go to the lowest index, so the result does not depend on the order entries are visited in.
+        if (distance < bestDistance || (distance == bestDistance && entry < best)) {
+            best = entry;
+            bestDistance = distance;
+        }
+    }
+
+    /**
+     * @return the index of the first occurrence of every distinct opaque color, so duplicates never tie in the tree
+     */
+    private static int[] firstOfEachColor(int[] colors) {
+        long[] keys = new long[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            keys[i] = ((long) (colors[i] & 0x00ffffff) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] unique = new int[colors.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || (keys[i] >>> 32) != (keys[i - 1] >>> 32)) {
+                unique[count++] = (int) keys[i];
+            }
+        }
+
+        return Arrays.copyOf(unique, count);
+    }
+
+    private static float latticeChannel(int index) {
+        return ColorMath.srgbToLinear(Math.min(0xff, index << LATTICE_SHIFT));
+    }
+}
@@ -0,0 +1,67 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Table driven polar math for the hue wheel.
+ * Angles are folded into the first octant and resolved from a precomputed atan table, so mapping a touch point to a
+ * hue costs a division and an interpolated lookup instead of a call to Math.atan2.
+ */
+final class PolarLookup {
+
+    private static final int TABLE_SIZE = 1024;
+
+    private static final float[] ATAN_DEGREES = new float[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            ATAN_DEGREES[i] = (float) Math.toDegrees(Math.atan((double) i / TABLE_SIZE));
+        }
+    }
+
+    private PolarLookup() {
+    }
+
+    /**
+     * Returns the angle of the vector (dx, dy) in degrees within [0, 360), growing clockwise from the positive x axis
+     * in screen coordinates (y pointing down), which is the direction a SweepGradient is laid out in.
+     */
+    static float angleDegrees(float dx, float dy) {
+        float ax = Math.abs(dx);
+        float ay = Math.abs(dy);
+
+        if (ax == 0f && ay == 0f) {
+            return 0f;
+        }
+
+        float angle = ax >= ay ? atanDegrees(ay / ax) : 90f - atanDegrees(ax / ay);
+
+        if (dx < 0f) {
+            angle = 180f - angle;
+        }
+
+        if (dy < 0f) {
+            angle = 360f - angle;
+        }
+
+        return angle >= 360f ? angle - 360f : angle;
+    }
+
+    /**
+     * Whether (dx, dy), relative to the ring center, lies within the annulus bounded by the two radii.
+     */
+    static boolean inAnnulus(float dx, float dy, float innerRadius, float outerRadius) {
+        float distanceSquared = dx * dx + dy * dy;
+
+        return distanceSquared >= innerRadius * innerRadius && distanceSquared <= outerRadius * outerRadius;
+    }
+
+    private static float atanDegrees(float ratio) {
+        float index = ratio * TABLE_SIZE;
+        int i = (int) index;
+
+        if (i >= TABLE_SIZE) {
+            return ATAN_DEGREES[TABLE_SIZE];
+        }
+
+        return ATAN_DEGREES[i] + (ATAN_DEGREES[i + 1] - ATAN_DEGREES[i]) * (index - i);
+    }
+}
@@ -0,0 +1,26 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Counters for the expensive work done by {@link ColorPickerView} while measuring, laying out and drawing.
+ * Plain int increments so they can stay enabled in release builds; tests read them to keep the hot path on budget.
+ */
+final class RenderStats {
+
+    int bitmapAllocations;
+    int satValRenders;
+    int hueRenders;
+    int shaderConstructions;
+    int measurePasses;
+    int panelLayouts;
+    int cacheInvalidations;
+
+    void reset() {
+        bitmapAllocations = 0;
+        satValRenders = 0;
+        hueRenders = 0;
+        shaderConstructions = 0;
+        measurePasses = 0;
+        panelLayouts = 0;
+        cacheInvalidations = 0;
+    }
+}
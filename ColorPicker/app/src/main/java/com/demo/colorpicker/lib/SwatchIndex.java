@@ -0,0 +1,228 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Open addressing map from color to its latest swatch state, replayed from {@link SwatchStore} records.
+ * Kept in parallel primitive arrays so indexing a million records doesn't allocate per entry.
+ */
+final class SwatchIndex {
+
+    private static final long NOT_USED = -1L;
+
+    private static final byte PRESENT = 1;
+    private static final byte FAVORITE = 2;
+
+    private int[] keys;
+    private long[] lastUsed;
+    private byte[] states;
+    private int size;
+
+    SwatchIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    boolean contains(int color) {
+        return find(color) >= 0;
+    }
+
+    void apply(int color, int type, long timestamp) {
+        int slot = insert(color);
+
+        switch (type) {
+            case SwatchStore.TYPE_USE:
+                lastUsed[slot] = timestamp;
+                break;
+            case SwatchStore.TYPE_FAVORITE:
+                states[slot] |= FAVORITE;
+                break;
+            case SwatchStore.TYPE_UNFAVORITE:
+                states[slot] &= ~FAVORITE;
+                break;
+            case SwatchStore.TYPE_REMOVE:
+                lastUsed[slot] = NOT_USED;
+                states[slot] &= ~FAVORITE;
+                break;
+        }
+    }
+
+    long lastUsed(int color) {
+        int slot = find(color);
+        return slot < 0 ? NOT_USED : lastUsed[slot];
+    }
+
+    boolean isFavorite(int color) {
+        int slot = find(color);
+        return slot >= 0 && (states[slot] & FAVORITE) != 0;
+    }
+
+    int[] favorites() {
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if ((states[i] & FAVORITE) != 0) {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if ((states[i] & FAVORITE) != 0) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The number of records a compacted store needs to describe this state.
+     */
+    int liveRecords() {
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] != 0 && lastUsed[i] != NOT_USED) {
+                count++;
+            }
+            if ((states[i] & FAVORITE) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Colors that are among the recents, least recently used first.
+     */
+    int[] usedColorsByTime() {
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] != 0 && lastUsed[i] != NOT_USED) {
+                count++;
+            }
+        }
+
+        int[] colors = new int[count];
+        long[] times = new long[count];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] != 0 && lastUsed[i] != NOT_USED) {
+                colors[n] = keys[i];
+                times[n] = lastUsed[i];
+                n++;
+            }
+        }
+
+        heapSort(times, colors);
+        return colors;
+    }
+
+    private int find(int color) {
+        int mask = keys.length - 1;
+        int slot = mix(color) & mask;
+
+        while (states[slot] != 0) {
+            if (keys[slot] == color) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insert(int color) {
+        int mask = keys.length - 1;
+        int slot = mix(color) & mask;
+
+        while (states[slot] != 0) {
+            if (keys[slot] == color) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return insert(color);
+        }
+
+        keys[slot] = color;
+        lastUsed[slot] = NOT_USED;
+        states[slot] = PRESENT;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldLastUsed = lastUsed;
+        byte[] oldStates = states;
+
+        allocate(oldKeys.length * 2);
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == 0) {
+                continue;
+            }
+
+            int slot = mix(oldKeys[i]) & mask;
+            while (states[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            lastUsed[slot] = oldLastUsed[i];
+            states[slot] = oldStates[i];
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        lastUsed = new long[capacity];
+        states = new byte[capacity];
+        size = 0;
+    }
+
+    private static int mix(int color) {
+        int h = color * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void heapSort(long[] keys, int[] values) {
+        int n = keys.length;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(keys, values, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(keys, values, 0, end);
+            siftDown(keys, values, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] keys, int[] values, int root, int end) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && keys[child + 1] > keys[child]) {
+                child++;
+            }
+            if (keys[root] >= keys[child]) {
+                return;
+            }
+            swap(keys, values, root, child);
+            root = child;
+        }
+    }
+
+    private static void swap(long[] keys, int[] values, int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+
+        int value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
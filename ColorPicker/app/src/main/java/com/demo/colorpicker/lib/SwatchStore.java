@@ -0,0 +1,329 @@
+package com.demo.colorpicker.lib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Recent and favorite swatches persisted in an append-only binary log of fixed-size records.
+ * <p>
+ * The file is a 16 byte header followed by 16 byte records (color, record type, timestamp), little endian. Opening
+ * only maps the file; the recents strip is answered by scanning the mapped records backwards until enough distinct
+ * colors were seen, and the per-color index used by {@link #lastUsed(int)} and {@link #isFavorite(int)} is built on
+ * first use. Every change appends a record, so call {@link #compactIfNeeded()} from time to time (e.g. when the
+ * screen is left) to drop superseded records.
+ * <p>
+ * Instances are not thread safe.
+ */
+public final class SwatchStore implements Closeable {
+
+    private static final int MAGIC = 0x48435753; // "SWCH"
+    private static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 16;
+
+    static final int TYPE_USE = 0;
+    static final int TYPE_FAVORITE = 1;
+    static final int TYPE_UNFAVORITE = 2;
+    static final int TYPE_REMOVE = 3;
+
+    private static final int MRU_CAPACITY = 64;
+    private static final int COMPACT_MIN_RECORDS = 4096;
+
+    private final File file;
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int mappedRecords;
+    private int recordCount;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private SwatchIndex index;
+
+    private final int[] mru = new int[MRU_CAPACITY];
+    private int mruSize = -1;
+
+    private SwatchStore(File file) {
+        this.file = file;
+    }
+
+    public static SwatchStore open(File file) throws IOException {
+        SwatchStore store = new SwatchStore(file);
+        store.openChannel();
+        return store;
+    }
+
+    private void openChannel() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+
+        long length = channel.size();
+
+        if (length < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(0L).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            length = HEADER_BYTES;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                close();
+                throw new IOException("Not a swatch store: " + file);
+            }
+        }
+
+        // A record torn by a crash mid-write is ignored and overwritten by the next append.
+        recordCount = (int) ((length - HEADER_BYTES) / RECORD_BYTES);
+        channel.position(HEADER_BYTES + (long) recordCount * RECORD_BYTES);
+        mapped = null;
+        mappedRecords = 0;
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    public void markUsed(int color) throws IOException {
+        markUsed(color, System.currentTimeMillis());
+    }
+
+    /**
+     * Records that a color was picked, moving it to the front of the recents.
+     */
+    public void markUsed(int color, long timestampMillis) throws IOException {
+        append(color, TYPE_USE, timestampMillis);
+
+        if (mruSize >= 0) {
+            int position = mruIndexOf(color);
+            int last = position >= 0 ? position : Math.min(mruSize, MRU_CAPACITY - 1);
+            System.arraycopy(mru, 0, mru, 1, last);
+            mru[0] = color;
+            if (position < 0 && mruSize < MRU_CAPACITY) {
+                mruSize++;
+            }
+        }
+    }
+
+    public void setFavorite(int color, boolean favorite) throws IOException {
+        append(color, favorite ? TYPE_FAVORITE : TYPE_UNFAVORITE, System.currentTimeMillis());
+    }
+
+    /**
+     * Forgets a color, dropping it from both the recents and the favorites.
+     */
+    public void remove(int color) throws IOException {
+        append(color, TYPE_REMOVE, System.currentTimeMillis());
+
+        if (mruSize > 0) {
+            int position = mruIndexOf(color);
+            if (position >= 0 && mruSize == MRU_CAPACITY) {
+                // A full strip may have more colors on disk that now move up, so rescan on the next read.
+                mruSize = -1;
+            } else if (position >= 0) {
+                System.arraycopy(mru, position + 1, mru, position, mruSize - position - 1);
+                mruSize--;
+            }
+        }
+    }
+
+    /**
+     * Fills {@code out} with the most recently used colors, newest first.
+     *
+     * @return the number of colors written
+     */
+    public int recents(int[] out) throws IOException {
+        if (out.length > MRU_CAPACITY) {
+            return scanRecents(out, out.length);
+        }
+
+        if (mruSize < 0) {
+            mruSize = scanRecents(mru, MRU_CAPACITY);
+        }
+
+        int count = Math.min(out.length, mruSize);
+        System.arraycopy(mru, 0, out, 0, count);
+        return count;
+    }
+
+    /**
+     * @return the timestamp of the last use of the color, or -1 if it is not among the recents
+     */
+    public long lastUsed(int color) throws IOException {
+        return index().lastUsed(color);
+    }
+
+    public boolean isFavorite(int color) throws IOException {
+        return index().isFavorite(color);
+    }
+
+    public int[] favorites() throws IOException {
+        return index().favorites();
+    }
+
+    /**
+     * Rewrites the file without superseded records once they make up more than half of it.
+     *
+     * @return true if the file was compacted
+     */
+    public boolean compactIfNeeded() throws IOException {
+        if (recordCount < COMPACT_MIN_RECORDS || recordCount < 2 * index().liveRecords()) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    public void compact() throws IOException {
+        SwatchIndex live = index();
+        File temp = new File(file.getPath() + ".tmp");
+
+        int[] colors = live.usedColorsByTime();
+        int[] favorites = live.favorites();
+
+        try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+            FileChannel outChannel = out.getChannel();
+            outChannel.truncate(0);
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0L);
+
+            for (int color : favorites) {
+                putRecord(outChannel, buffer, color, TYPE_FAVORITE, 0L);
+            }
+
+            for (int color : colors) {
+                putRecord(outChannel, buffer, color, TYPE_USE, live.lastUsed(color));
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                outChannel.write(buffer);
+            }
+            outChannel.force(true);
+        }
+
+        close();
+
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+
+        openChannel();
+        index = null;
+        mruSize = -1;
+    }
+
+    private static void putRecord(FileChannel channel, ByteBuffer buffer, int color, int type, long timestamp)
+            throws IOException {
+        if (buffer.remaining() < RECORD_BYTES) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        buffer.putInt(color).putInt(type).putLong(timestamp);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped = null;
+        mappedRecords = 0;
+
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    private void append(int color, int type, long timestamp) throws IOException {
+        writeBuffer.clear();
+        writeBuffer.putInt(color).putInt(type).putLong(timestamp).flip();
+
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+
+        recordCount++;
+
+        if (index != null) {
+            index.apply(color, type, timestamp);
+        }
+    }
+
+    private int scanRecents(int[] out, int limit) throws IOException {
+        ByteBuffer records = records();
+        SwatchIndex seen = new SwatchIndex(Math.max(16, limit * 2));
+        int count = 0;
+
+        for (int i = recordCount - 1; i >= 0 && count < limit; i--) {
+            int offset = HEADER_BYTES + i * RECORD_BYTES;
+            int type = records.getInt(offset + 4);
+
+            if (type != TYPE_USE && type != TYPE_REMOVE) {
+                continue;
+            }
+
+            int color = records.getInt(offset);
+
+            if (seen.contains(color)) {
+                continue;
+            }
+
+            seen.apply(color, TYPE_USE, 0L);
+
+            if (type == TYPE_USE) {
+                out[count++] = color;
+            }
+        }
+
+        return count;
+    }
+
+    private SwatchIndex index() throws IOException {
+        if (index == null) {
+            ByteBuffer records = records();
+            SwatchIndex built = new SwatchIndex(1024);
+
+            for (int i = 0; i < recordCount; i++) {
+                int offset = HEADER_BYTES + i * RECORD_BYTES;
+                built.apply(records.getInt(offset), records.getInt(offset + 4), records.getLong(offset + 8));
+            }
+
+            index = built;
+        }
+        return index;
+    }
+
+    private ByteBuffer records() throws IOException {
+        if (mapped == null || mappedRecords != recordCount) {
+            long length = HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mappedRecords = recordCount;
+        }
+        return mapped;
+    }
+
+    private int mruIndexOf(int color) {
+        for (int i = 0; i < mruSize; i++) {
+            if (mru[i] == color) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Material style tonal palette of a seed color: five roles with thirteen tones each, built by
+ * {@link TonalPaletteGenerator}. Tone 0 is black, tone 100 is white and every tone in between has the same perceived
+ * lightness across roles. Instances are immutable and may be shared between threads.
+ */
+public final class TonalPalette {
+
+    public static final int PRIMARY = 0;
+    public static final int SECONDARY = 1;
+    public static final int TERTIARY = 2;
+    public static final int NEUTRAL = 3;
+    public static final int NEUTRAL_VARIANT = 4;
+
+    static final int ROLE_COUNT = 5;
+
+    private static final int[] TONES = {0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 95, 99, 100};
+
+    private final int seedColor;
+    private final int[] colors;
+
+    TonalPalette(int seedColor, int[] colors) {
+        this.seedColor = seedColor;
+        this.colors = colors;
+    }
+
+    /**
+     * The tones every role is generated for, darkest first.
+     */
+    public static int[] tones() {
+        return TONES.clone();
+    }
+
+    static int toneCount() {
+        return TONES.length;
+    }
+
+    static int toneAt(int index) {
+        return TONES[index];
+    }
+
+    /**
+     * The quantized color the palette was generated from.
+     */
+    public int getSeedColor() {
+        return seedColor;
+    }
+
+    /**
+     * @param role one of {@link #PRIMARY}, {@link #SECONDARY}, {@link #TERTIARY}, {@link #NEUTRAL} or
+     *             {@link #NEUTRAL_VARIANT}
+     * @param tone one of {@link #tones()}
+     */
+    public int getColor(int role, int tone) {
+        if (role < 0 || role >= ROLE_COUNT) {
+            throw new IllegalArgumentException("Unknown role " + role);
+        }
+
+        for (int i = 0; i < TONES.length; i++) {
+            if (TONES[i] == tone) {
+                return colors[role * TONES.length + i];
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported tone " + tone);
+    }
+}
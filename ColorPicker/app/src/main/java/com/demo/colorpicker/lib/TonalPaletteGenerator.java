@@ -0,0 +1,159 @@
+package com.demo.colorpicker.lib;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Builds {@link TonalPalette}s in OKLCH and memoizes them in an LRU keyed by the seed color quantized to 6 bits per
+ * channel, so dragging across nearby colors mostly hits the cache. Safe to call from any thread; a palette is
+ * computed outside the cache lock.
+ * <p>
+ * Tones map to OKLab lightness. Chroma is capped per hue and tone by a solver table holding the largest chroma that
+ * stays inside sRGB, filled lazily one hue degree at a time and shared by all generators.
+ */
+public final class TonalPaletteGenerator {
+
+    private static final int QUANTIZE_MASK = 0xfcfcfc;
+
+    private static final float MAX_CHROMA = 0.4f;
+    private static final int SOLVER_ITERATIONS = 16;
+
+    private static final AtomicReferenceArray<float[]> CHROMA_LIMITS = new AtomicReferenceArray<>(360);
+
+    private final LinkedHashMap<Integer, TonalPalette> cache;
+
+    public TonalPaletteGenerator(final int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cacheSize must be positive");
+        }
+
+        cache = new LinkedHashMap<Integer, TonalPalette>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, TonalPalette> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public TonalPalette generate(int color) {
+        int seed = 0xff000000 | (color & QUANTIZE_MASK) | ((color & 0xc0c0c0) >> 6);
+
+        synchronized (cache) {
+            TonalPalette cached = cache.get(seed);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        TonalPalette palette = compute(seed);
+
+        synchronized (cache) {
+            TonalPalette raced = cache.get(seed);
+            if (raced != null) {
+                return raced;
+            }
+            cache.put(seed, palette);
+        }
+
+        return palette;
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    static TonalPalette compute(int seed) {
+        float[] lab = new float[3];
+        ColorMath.toOklab(seed, lab);
+
+        float chroma = (float) Math.hypot(lab[1], lab[2]);
+        float hue = (float) Math.toDegrees(Math.atan2(lab[2], lab[1]));
+        if (hue < 0f) {
+            hue += 360f;
+        }
+
+        int tones = TonalPalette.toneCount();
+        int[] colors = new int[TonalPalette.ROLE_COUNT * tones];
+
+        fillRole(colors, TonalPalette.PRIMARY, hue, Math.max(chroma, 0.08f), lab);
+        fillRole(colors, TonalPalette.SECONDARY, hue, chroma / 3f, lab);
+        fillRole(colors, TonalPalette.TERTIARY, (hue + 60f) % 360f, chroma / 2f, lab);
+        fillRole(colors, TonalPalette.NEUTRAL, hue, chroma / 12f, lab);
+        fillRole(colors, TonalPalette.NEUTRAL_VARIANT, hue, chroma / 6f, lab);
+
+        return new TonalPalette(seed, colors);
+    }
+
+    private static void fillRole(int[] colors, int role, float hue, float chroma, float[] scratch) {
+        int bucket = (int) hue % 360;
+        float[] lower = chromaLimits(bucket);
+        float[] upper = chromaLimits((bucket + 1) % 360);
+
+        double radians = Math.toRadians(hue);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+
+        int tones = TonalPalette.toneCount();
+        for (int i = 0; i < tones; i++) {
+            float c = Math.min(chroma, Math.min(lower[i], upper[i]));
+            float lightness = TonalPalette.toneAt(i) / 100f;
+            colors[role * tones + i] = ColorMath.oklabToColor(lightness, c * cos, c * sin, scratch);
+        }
+    }
+
+    private static float[] chromaLimits(int hueDegree) {
+        float[] limits = CHROMA_LIMITS.get(hueDegree);
+
+        if (limits == null) {
+            limits = solveChromaLimits(hueDegree);
+            CHROMA_LIMITS.compareAndSet(hueDegree, null, limits);
+        }
+
+        return limits;
+    }
+
+    private static float[] solveChromaLimits(int hueDegree) {
+        double radians = Math.toRadians(hueDegree);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+
+        float[] rgb = new float[3];
+        float[] limits = new float[TonalPalette.toneCount()];
+
+        for (int i = 0; i < limits.length; i++) {
+            float lightness = TonalPalette.toneAt(i) / 100f;
+
+            if (lightness <= 0f || lightness >= 1f) {
+                continue;
+            }
+
+            float low = 0f;
+            float high = MAX_CHROMA;
+
+            for (int step = 0; step < SOLVER_ITERATIONS; step++) {
+                float mid = (low + high) / 2f;
+                ColorMath.oklabToLinear(lightness, mid * cos, mid * sin, rgb);
+
+                if (inGamut(rgb)) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+
+            limits[i] = low;
+        }
+
+        return limits;
+    }
+
+    private static boolean inGamut(float[] rgb) {
+        final float epsilon = 1e-4f;
+        return rgb[0] >= -epsilon && rgb[0] <= 1f + epsilon
+                && rgb[1] >= -epsilon && rgb[1] <= 1f + epsilon
+                && rgb[2] >= -epsilon && rgb[2] <= 1f + epsilon;
+    }
+}
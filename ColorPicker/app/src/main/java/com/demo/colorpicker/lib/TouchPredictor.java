@@ -0,0 +1,113 @@
+package com.demo.colorpicker.lib;
+
+/**
+ * Extrapolates where a dragging finger will be a few milliseconds after the last touch sample.
+ * <p>
+ * Each axis runs an alpha-beta filter, the steady state form of a constant velocity Kalman filter: every sample
+ * corrects the estimated position and velocity by fixed gains, which smooths out digitizer jitter at the cost of a
+ * couple of multiplications. Predictions are only for drawing; the picked color must come from the real samples.
+ */
+final class TouchPredictor {
+
+    private final static float DEFAULT_POSITION_GAIN = 0.75f;
+    private final static float DEFAULT_VELOCITY_GAIN = 0.3f;
+
+    // Predicting further than this overshoots more than it helps whenever the finger turns or stops.
+    final static int MAX_LOOKAHEAD_MILLIS = 32;
+
+    private final float positionGain;
+    private final float velocityGain;
+
+    private int samples;
+    private long lastTime;
+    private float x;
+    private float y;
+    private float vx;
+    private float vy;
+
+    TouchPredictor() {
+        this(DEFAULT_POSITION_GAIN, DEFAULT_VELOCITY_GAIN);
+    }
+
+    /**
+     * @param positionGain how far each sample pulls the estimated position towards it, in (0, 1]
+     * @param velocityGain how far each sample corrects the estimated velocity, in (0, 1]
+     */
+    TouchPredictor(float positionGain, float velocityGain) {
+        if (!(positionGain > 0f && positionGain <= 1f && velocityGain > 0f && velocityGain <= 1f)) {
+            throw new IllegalArgumentException("gains must be within (0, 1]");
+        }
+        this.positionGain = positionGain;
+        this.velocityGain = velocityGain;
+    }
+
+    void reset() {
+        samples = 0;
+        vx = 0f;
+        vy = 0f;
+    }
+
+    /**
+     * Adds a real touch sample; samples must be added in time order, historical ones first.
+     */
+    void addSample(float sampleX, float sampleY, long timeMillis) {
+        if (samples == 0) {
+            x = sampleX;
+            y = sampleY;
+            lastTime = timeMillis;
+            samples = 1;
+            return;
+        }
+
+        long dt = timeMillis - lastTime;
+
+        if (dt <= 0) {
+            // Same timestamp: the newer sample replaces the position, the velocity estimate stays.
+            x += positionGain * (sampleX - x);
+            y += positionGain * (sampleY - y);
+            return;
+        }
+
+        if (samples == 1) {
+            vx = (sampleX - x) / dt;
+            vy = (sampleY - y) / dt;
+            x = sampleX;
+            y = sampleY;
+        } else {
+            float px = x + vx * dt;
+            float py = y + vy * dt;
+            float rx = sampleX - px;
+            float ry = sampleY - py;
+
+            x = px + positionGain * rx;
+            y = py + positionGain * ry;
+            vx += velocityGain * rx / dt;
+            vy += velocityGain * ry / dt;
+        }
+
+        lastTime = timeMillis;
+        samples++;
+    }
+
+    /**
+     * Writes the expected position at {@code timeMillis} into {@code out}, extrapolating at most
+     * {@link #MAX_LOOKAHEAD_MILLIS} past the last sample.
+     *
+     * @return false if there are no samples to predict from
+     */
+    boolean predict(long timeMillis, float[] out) {
+        if (samples == 0) {
+            return false;
+        }
+
+        long ahead = Math.max(0, Math.min(MAX_LOOKAHEAD_MILLIS, timeMillis - lastTime));
+
+        out[0] = x + vx * ahead;
+        out[1] = y + vy * ahead;
+        return true;
+    }
+
+    long lastSampleTime() {
+        return lastTime;
+    }
+}
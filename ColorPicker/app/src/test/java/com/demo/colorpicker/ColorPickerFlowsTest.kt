@@ -0,0 +1,107 @@
+package com.demo.colorpicker
+
+import android.graphics.Color
+import com.demo.colorpicker.lib.ColorChangeStream
+import com.demo.colorpicker.lib.ColorPickerView
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.util.ReflectionHelpers
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ColorPickerFlowsTest {
+
+    private fun ColorPickerView.hasSubscribers() =
+        ReflectionHelpers.getField<ColorChangeStream>(this, "colorChangeStream").hasSubscribers()
+
+    @Test
+    fun slowCollectorSeesOnlyTheLatestColor() = runBlocking {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        val received = ArrayList<Int>()
+        val release = CompletableDeferred<Unit>()
+
+        // Unconfined runs the collector inline, so it is parked in the first delivery while the rest are published.
+        val job = launch(Dispatchers.Unconfined) {
+            picker.colorChanges().collect {
+                received += it
+                release.await()
+            }
+        }
+
+        val published = ArrayList<Int>()
+        for (red in 0..250 step 50) {
+            picker.setColor(Color.rgb(red, 40, 90), true)
+            published += picker.color
+        }
+        release.complete(Unit)
+
+        assertEquals(listOf(published.first(), published.last()), received)
+        job.cancel()
+    }
+
+    @Test
+    fun everyPolicyKeepsAllColors() = runBlocking {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        val received = ArrayList<Int>()
+        val release = CompletableDeferred<Unit>()
+
+        val job = launch(Dispatchers.Unconfined) {
+            picker.colorChanges(ColorChangeStream.Policy.every()).collect {
+                received += it
+                release.await()
+            }
+        }
+
+        val published = ArrayList<Int>()
+        for (red in 0..250 step 50) {
+            picker.setColor(Color.rgb(red, 40, 90), true)
+            published += picker.color
+        }
+        release.complete(Unit)
+
+        assertEquals(published, received)
+        job.cancel()
+    }
+
+    @Test
+    fun cancellingTheCollectorUnsubscribes() = runBlocking {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+
+        val job = launch(Dispatchers.Unconfined) {
+            picker.colorChanges().collect { }
+        }
+        assertTrue(picker.hasSubscribers())
+
+        job.cancel()
+        job.join()
+
+        assertFalse(picker.hasSubscribers())
+    }
+
+    @Test
+    fun unbindCompletesTheFlow() = runBlocking {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.bind(Color.RED) { }
+
+        val job = launch(Dispatchers.Unconfined) {
+            picker.colorChanges().collect { }
+        }
+        assertTrue(job.isActive)
+
+        picker.unbind()
+        job.join()
+
+        assertTrue(job.isCompleted)
+        assertFalse(job.isCancelled)
+    }
+}
@@ -0,0 +1,53 @@
+package com.demo.colorpicker.lib
+
+/**
+ * Timing harness for the *Benchmark classes. Those are excluded from the unit test run and only run, on their own,
+ * with -Pbenchmarks=true, so they report numbers instead of asserting on them.
+ *
+ * A measurement warms the body up first so the JIT has settled, then times several runs and reports the median, which
+ * shrugs off the odd GC pause or scheduler hiccup that would skew a single run or an average.
+ */
+internal object Benchmarks {
+
+    private const val WARMUP_RUNS = 3
+    private const val MEASURED_RUNS = 7
+
+    /**
+     * Times [body], which performs [operations] operations per call, and reports and returns the median nanoseconds
+     * per operation.
+     */
+    fun measure(name: String, operations: Int, body: () -> Unit): Double {
+        repeat(WARMUP_RUNS) { body() }
+
+        val nanos = DoubleArray(MEASURED_RUNS) {
+            val start = System.nanoTime()
+            body()
+            (System.nanoTime() - start).toDouble() / operations
+        }
+        nanos.sort()
+
+        val median = nanos[MEASURED_RUNS / 2]
+        report(name, formatNanos(median) + "/op")
+        return median
+    }
+
+    /**
+     * Times a single call of [body], for one-off work such as building an index, and returns its result.
+     */
+    fun <T> once(name: String, body: () -> T): T {
+        val start = System.nanoTime()
+        val result = body()
+        report(name, formatNanos((System.nanoTime() - start).toDouble()))
+        return result
+    }
+
+    fun report(name: String, result: String) {
+        println("benchmark %-48s %s".format(name, result))
+    }
+
+    private fun formatNanos(nanos: Double) = when {
+        nanos >= 1e6 -> "%.1f ms".format(nanos / 1e6)
+        nanos >= 1e3 -> "%.1f us".format(nanos / 1e3)
+        else -> "%.1f ns".format(nanos)
+    }
+}
@@ -0,0 +1,110 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.ArrayDeque
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ColorChangeStreamTest {
+
+    private class ManualExecutor : Executor {
+        val tasks = ArrayDeque<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks.add(command)
+        }
+
+        fun runAll() {
+            while (tasks.isNotEmpty()) tasks.poll()!!.run()
+        }
+    }
+
+    @Test
+    fun latestPolicyConflatesPendingEvents() {
+        val stream = ColorChangeStream()
+        val executor = ManualExecutor()
+        val received = mutableListOf<Int>()
+        stream.subscribe(executor, ColorChangeStream.Policy.latest()) { received.add(it) }
+
+        for (color in 1..1000) stream.publish(color)
+
+        assertEquals(1, executor.tasks.size)
+        executor.runAll()
+        assertEquals(listOf(1000), received)
+    }
+
+    @Test
+    fun everyPolicyDeliversAllEventsInOrder() {
+        val stream = ColorChangeStream()
+        val executor = ManualExecutor()
+        val received = mutableListOf<Int>()
+        stream.subscribe(executor, ColorChangeStream.Policy.every()) { received.add(it) }
+
+        for (color in 1..1000) stream.publish(color)
+
+        assertEquals(1, executor.tasks.size)
+        executor.runAll()
+        assertEquals((1..1000).toList(), received)
+    }
+
+    @Test
+    fun sampledPolicyDeliversLeadingAndTrailingValues() {
+        val stream = ColorChangeStream()
+        val received = Collections.synchronizedList(mutableListOf<Int>())
+        val trailing = CountDownLatch(1)
+        stream.subscribe(Executor { it.run() }, ColorChangeStream.Policy.sampled(200, TimeUnit.MILLISECONDS)) {
+            received.add(it)
+            if (it == 1000) trailing.countDown()
+        }
+
+        for (color in 1..1000) stream.publish(color)
+
+        assertTrue(trailing.await(2, TimeUnit.SECONDS))
+        assertEquals(listOf(1, 1000), received.toList())
+    }
+
+    @Test
+    fun slowSubscriberDoesNotBlockPublisherOrOtherSubscribers() {
+        val stream = ColorChangeStream()
+        val slowExecutor = Executors.newSingleThreadExecutor()
+        val release = CountDownLatch(1)
+        val slowReceived = Collections.synchronizedList(mutableListOf<Int>())
+        val fastReceived = mutableListOf<Int>()
+
+        stream.subscribe(slowExecutor, ColorChangeStream.Policy.latest()) {
+            release.await()
+            slowReceived.add(it)
+        }
+        stream.subscribe(Executor { it.run() }, ColorChangeStream.Policy.every()) { fastReceived.add(it) }
+
+        for (color in 1..10_000) stream.publish(color)
+        assertEquals(10_000, fastReceived.size)
+
+        release.countDown()
+        slowExecutor.shutdown()
+        assertTrue(slowExecutor.awaitTermination(2, TimeUnit.SECONDS))
+        assertEquals(10_000, slowReceived.last())
+        assertTrue(slowReceived.size <= 2)
+    }
+
+    @Test
+    fun unsubscribeStopsPendingDeliveries() {
+        val stream = ColorChangeStream()
+        val executor = ManualExecutor()
+        val received = mutableListOf<Int>()
+        val subscription = stream.subscribe(executor, ColorChangeStream.Policy.every()) { received.add(it) }
+
+        stream.publish(1)
+        subscription.unsubscribe()
+        stream.publish(2)
+        executor.runAll()
+
+        assertTrue(received.isEmpty())
+        assertTrue(!stream.hasSubscribers())
+    }
+}
@@ -0,0 +1,90 @@
+package com.demo.colorpicker.lib
+
+import com.demo.colorpicker.lib.ColorGradient.Interpolation
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.nio.IntBuffer
+
+class ColorGradientTest {
+
+    private val black = 0xff000000.toInt()
+    private val white = 0xffffffff.toInt()
+    private val red = 0xffff0000.toInt()
+    private val blue = 0xff0000ff.toInt()
+
+    @Test
+    fun midpointsDependOnTheInterpolationSpace() {
+        assertEquals(0xff808080.toInt(), ColorGradient(intArrayOf(black, white), null, Interpolation.SRGB).colorAt(0.5f))
+        assertEquals(0xffbcbcbc.toInt(), ColorGradient(intArrayOf(black, white), null, Interpolation.LINEAR_RGB).colorAt(0.5f))
+        assertEquals(0xff636363.toInt(), ColorGradient(intArrayOf(black, white), null, Interpolation.OKLAB).colorAt(0.5f))
+
+        assertEquals(0xff800080.toInt(), ColorGradient(intArrayOf(red, blue), null, Interpolation.SRGB).colorAt(0.5f))
+        assertEquals(0xffbc00bc.toInt(), ColorGradient(intArrayOf(red, blue), null, Interpolation.LINEAR_RGB).colorAt(0.5f))
+        assertEquals(0xff8c53a2.toInt(), ColorGradient(intArrayOf(red, blue), null, Interpolation.OKLAB).colorAt(0.5f))
+    }
+
+    @Test
+    fun hsvTakesTheShorterArcAndKeepsHueIntoGray() {
+        // Red (0) to blue (240) is shorter through magenta (300) than through green (120).
+        assertEquals(0xffff00ff.toInt(), ColorGradient(intArrayOf(red, blue), null, Interpolation.HSV).colorAt(0.5f))
+        assertEquals(0xff8080ff.toInt(), ColorGradient(intArrayOf(white, blue), null, Interpolation.HSV).colorAt(0.5f))
+    }
+
+    @Test
+    fun fillIncludesBothEndsAndHonoursStopPositions() {
+        val gradient = ColorGradient(intArrayOf(red, white, blue), floatArrayOf(0f, 0.25f, 1f), Interpolation.SRGB)
+        val out = IntArray(5)
+
+        gradient.fill(out, 0, out.size)
+
+        assertEquals(red, out[0])
+        assertEquals(white, out[1])
+        assertEquals(blue, out[4])
+    }
+
+    @Test
+    fun alphaIsInterpolatedLinearly() {
+        val gradient = ColorGradient(intArrayOf(0x00ff0000, red), null, Interpolation.OKLAB)
+
+        assertEquals(0x80, gradient.colorAt(0.5f) ushr 24)
+    }
+
+    @Test
+    fun bufferAndParallelFillsMatchSerialFill() {
+        for (interpolation in Interpolation.values()) {
+            val gradient = ColorGradient(intArrayOf(red, 0x8000ff00.toInt(), blue, white), null, interpolation)
+            val count = ColorGradient.PARALLEL_THRESHOLD * 2 + 17
+
+            val serial = IntArray(count)
+            gradient.fillRange(serial, 0, 0, count, count)
+
+            val parallel = IntArray(count + 3)
+            gradient.fill(parallel, 3, count)
+            assertArrayEquals(serial, parallel.copyOfRange(3, count + 3))
+
+            val direct = ByteBuffer.allocateDirect(count * 4).asIntBuffer()
+            gradient.fill(direct)
+            assertEquals(count, direct.position())
+            assertArrayEquals(serial, IntArray(count) { direct.get(it) })
+
+            val heap = IntBuffer.allocate(count)
+            gradient.fill(heap)
+            assertArrayEquals(serial, heap.array())
+        }
+    }
+
+    @Test
+    fun fillEndsOnTheStopsInEverySpace() {
+        val colors = intArrayOf(red, 0xffffc000.toInt(), 0xff20a060.toInt(), blue)
+        val out = IntArray(4096)
+
+        for (interpolation in Interpolation.values()) {
+            ColorGradient(colors, null, interpolation).fill(out, 0, out.size)
+
+            assertEquals("$interpolation", red, out[0])
+            assertEquals("$interpolation", blue, out[out.size - 1])
+        }
+    }
+}
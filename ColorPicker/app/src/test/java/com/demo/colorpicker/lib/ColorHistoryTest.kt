@@ -0,0 +1,100 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.lang.management.ManagementFactory
+
+class ColorHistoryTest {
+
+    @Test
+    fun keepsOnlyTheNewestEntriesAtCapacity() {
+        val history = ColorHistory(4)
+        for (color in 1..10) history.record(color)
+
+        assertEquals(4, history.size())
+        assertEquals(10, history.peek())
+        assertEquals(9, history.undo())
+        assertEquals(8, history.undo())
+        assertEquals(7, history.undo())
+        assertFalse(history.canUndo())
+    }
+
+    @Test
+    fun recordingAfterUndoDropsRedoEntries() {
+        val history = ColorHistory(8)
+        history.record(1)
+        history.record(2)
+        history.record(3)
+
+        assertEquals(2, history.undo())
+        assertTrue(history.canRedo())
+
+        history.record(4)
+
+        assertFalse(history.canRedo())
+        assertEquals(3, history.size())
+        assertEquals(2, history.undo())
+        assertEquals(4, history.redo())
+    }
+
+    @Test
+    fun repeatedColorIsNotRecordedTwice() {
+        val history = ColorHistory(8)
+        history.record(0xff112233.toInt())
+        history.record(0xff112233.toInt())
+
+        assertEquals(1, history.size())
+    }
+
+    @Test
+    fun packedStateRoundTrips() {
+        val history = ColorHistory(3)
+        for (color in 1..5) history.record(color)
+        history.undo()
+
+        val restored = ColorHistory(3)
+        restored.restore(history.toArray())
+
+        assertArrayEquals(history.toArray(), restored.toArray())
+        assertEquals(4, restored.peek())
+        assertEquals(5, restored.redo())
+    }
+
+    @Test
+    fun restoreIntoSmallerHistoryKeepsNewestEntries() {
+        val history = ColorHistory(8)
+        for (color in 1..8) history.record(color)
+
+        val restored = ColorHistory(3)
+        restored.restore(history.toArray())
+
+        assertEquals(3, restored.size())
+        assertEquals(8, restored.peek())
+        assertEquals(7, restored.undo())
+        assertEquals(6, restored.undo())
+    }
+
+    @Test
+    fun recordAndUndoDoNotAllocate() {
+        val threads = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val history = ColorHistory(256)
+
+        // Warm up so the measured loop runs compiled code.
+        repeat(100_000) { churn(history, it) }
+
+        val before = threads.getThreadAllocatedBytes(Thread.currentThread().id)
+        repeat(100_000) { churn(history, it) }
+        val allocated = threads.getThreadAllocatedBytes(Thread.currentThread().id) - before
+
+        assertTrue("allocated $allocated bytes", allocated < 1024)
+    }
+
+    private fun churn(history: ColorHistory, i: Int) {
+        history.record(i)
+        if (i % 3 == 0 && history.canUndo()) history.undo()
+        if (i % 5 == 0 && history.canRedo()) history.redo()
+    }
+}
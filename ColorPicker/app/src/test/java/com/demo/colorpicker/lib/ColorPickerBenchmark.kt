@@ -0,0 +1,136 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import kotlin.random.Random
+
+/**
+ * Throughput of the picker's helpers, reported through [Benchmarks]. Run with
+ * `./gradlew testDebugUnitTest -Pbenchmarks=true`; never part of the regular unit test run. Runs under Robolectric
+ * so [hueMapping] can lay out real pickers.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ColorPickerBenchmark {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    @Test
+    fun tonalPalettes() {
+        val seeds = IntArray(2048) { 0xff000000.toInt() or (it * 8191 and 0xffffff) }
+
+        Benchmarks.measure("TonalPaletteGenerator cold", seeds.size) {
+            val generator = TonalPaletteGenerator(4096)
+            for (seed in seeds) generator.generate(seed)
+        }
+
+        val warm = TonalPaletteGenerator(4096)
+        for (seed in seeds) warm.generate(seed)
+        Benchmarks.measure("TonalPaletteGenerator warm", seeds.size) {
+            for (seed in seeds) warm.generate(seed)
+        }
+    }
+
+    @Test
+    fun swatchStoreWithAMillionRecords() {
+        val file = folder.newFile().also { it.delete() }
+        val distinct = 100_000
+        val colors = IntArray(distinct) { 0xff000000.toInt() or (it * 7919 and 0xffffff) }
+        SwatchStore.open(file).use { store ->
+            for (i in 0 until 1_000_000) store.markUsed(colors[i % distinct], i.toLong())
+        }
+
+        val strip = IntArray(16)
+        Benchmarks.measure("SwatchStore open and recents, 1M records", 1) {
+            SwatchStore.open(file).use { it.recents(strip) }
+        }
+        Benchmarks.measure("SwatchStore open and index, 1M records", 1) {
+            SwatchStore.open(file).use { it.lastUsed(colors[0]) }
+        }
+
+        SwatchStore.open(file).use { store ->
+            Benchmarks.measure("SwatchStore lookup, 100k colors", distinct) {
+                for (color in colors) store.lastUsed(color)
+            }
+        }
+    }
+
+    @Test
+    fun gradientSamplesPerSpace() {
+        val colors = intArrayOf(0xffff0000.toInt(), 0xffffc000.toInt(), 0xff20a060.toInt(), 0xff0000ff.toInt())
+        val out = IntArray(1 shl 20)
+
+        for (interpolation in ColorGradient.Interpolation.values()) {
+            val gradient = ColorGradient(colors, null, interpolation)
+            Benchmarks.measure("ColorGradient fill, $interpolation", out.size) {
+                gradient.fill(out, 0, out.size)
+            }
+        }
+    }
+
+    @Test
+    fun paletteLookups() {
+        val random = Random(3)
+        val queries = IntArray(100_000) { random.nextInt() }
+
+        for (palette in Palettes.all()) {
+            val index = Benchmarks.once("PaletteIndex build, $palette") { PaletteIndex(palette.colors) }
+
+            Benchmarks.measure("PaletteIndex lookup, $palette", queries.size) {
+                for (color in queries) index.nearest(color)
+            }
+
+            val scanned = minOf(queries.size, 20_000_000 / palette.colors.size)
+            Benchmarks.measure("PaletteIndex full scan, $palette", scanned) {
+                for (i in 0 until scanned) index.nearestExhaustive(queries[i])
+            }
+        }
+    }
+
+    @Test
+    fun hueMapping() {
+        val linear = ColorPickerView(RuntimeEnvironment.getApplication()).apply { layoutAt(480, 600) }
+        val wheel = ColorPickerView(RuntimeEnvironment.getApplication()).apply {
+            isHueWheelEnabled = true
+            layoutAt(480, 600)
+        }
+        val random = Random(5)
+        val xs = FloatArray(1_000_000) { random.nextFloat() * 480 }
+        val ys = FloatArray(xs.size) { random.nextFloat() * 600 }
+        val hues = FloatArray(xs.size) { random.nextFloat() * 360 }
+        // Every result feeds the sink, so the JIT can't drop any of the loops as dead code.
+        var sink = 0f
+
+        Benchmarks.measure("Hue from point, linear", xs.size) {
+            for (x in xs) sink += linear.pointToHue(x)
+        }
+        Benchmarks.measure("Hue from point, wheel", xs.size) {
+            for (i in xs.indices) sink += wheel.pointToWheelHue(xs[i], ys[i])
+        }
+        Benchmarks.measure("Hue from point, wheel with Math.atan2", xs.size) {
+            for (i in xs.indices) sink += Math.toDegrees(Math.atan2(ys[i] - 300.0, xs[i] - 240.0)).toFloat()
+        }
+
+        Benchmarks.measure("Hue hit test, linear", xs.size) {
+            for (i in xs.indices) if (linear.isInHuePanel(xs[i], ys[i])) sink++
+        }
+        Benchmarks.measure("Hue hit test, wheel", xs.size) {
+            for (i in xs.indices) if (wheel.isInHuePanel(xs[i], ys[i])) sink++
+        }
+
+        Benchmarks.measure("Point from hue, linear", hues.size) {
+            for (hue in hues) sink += linear.hueToPoint(hue).x
+        }
+        Benchmarks.measure("Point from hue, wheel", hues.size) {
+            for (hue in hues) sink += wheel.hueToWheelPoint(hue).x
+        }
+
+        if (sink.isNaN()) println(sink)
+    }
+}
@@ -0,0 +1,60 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Color
+import android.view.MotionEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewAlphaPanelTest {
+
+    @Test
+    fun alphaOnlyDragReusesGradientShader() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.setColor(Color.rgb(30, 140, 200))
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+        picker.renderStats.reset()
+
+        val density = picker.resources.displayMetrics.density
+        val y = picker.height - (6 + 5) * density
+        val startColor = picker.color
+
+        picker.touch(MotionEvent.ACTION_DOWN, 40f, y)
+        picker.drawOnce()
+        for (x in 40..280 step 4) {
+            picker.touch(MotionEvent.ACTION_MOVE, x.toFloat(), y)
+            picker.drawOnce()
+        }
+        picker.touch(MotionEvent.ACTION_UP, 280f, y)
+        picker.drawOnce()
+
+        assertNotEquals(Color.alpha(startColor), Color.alpha(picker.color))
+        assertEquals(startColor and 0x00ffffff, picker.color and 0x00ffffff)
+        assertEquals(0, picker.renderStats.shaderConstructions)
+    }
+
+    @Test
+    fun opaqueColorChangeRebuildsShaderOnce() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+        picker.renderStats.reset()
+
+        picker.setColor(Color.GREEN)
+        picker.drawOnce()
+        picker.drawOnce()
+
+        assertEquals(1, picker.renderStats.shaderConstructions - satValShaders(picker))
+    }
+
+    private fun satValShaders(picker: ColorPickerView) = picker.renderStats.satValRenders * 2
+}
@@ -0,0 +1,64 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Color
+import android.view.ContextThemeWrapper
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.ParameterizedRobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+
+@RunWith(ParameterizedRobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewGoldenTest(private val case: RenderCase) {
+
+    class RenderCase(
+        val density: String,
+        val widthDp: Int,
+        val heightDp: Int,
+        val variant: String = "default",
+        val configure: ColorPickerView.() -> Unit = {}
+    ) {
+        override fun toString() = "${variant}_${widthDp}x${heightDp}dp_$density"
+    }
+
+    @Test
+    fun matchesGolden() {
+        RuntimeEnvironment.setQualifiers("+${case.density}")
+
+        // A framework theme, so the goldens don't change with the app theme the border color is read from.
+        val context = ContextThemeWrapper(RuntimeEnvironment.getApplication(), android.R.style.Theme_Material_Light)
+        val picker = ColorPickerView(context)
+        picker.setColor(Color.argb(0xc0, 30, 140, 200))
+        case.configure(picker)
+
+        val density = picker.resources.displayMetrics.density
+        picker.layoutAt(Math.round(case.widthDp * density), Math.round(case.heightDp * density))
+
+        GoldenImages.verify(case.toString(), picker.drawOnce())
+    }
+
+    companion object {
+
+        @JvmStatic
+        @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+        fun cases(): List<Array<Any>> {
+            val cases = ArrayList<RenderCase>()
+
+            for (density in listOf("mdpi", "xhdpi", "xxhdpi")) {
+                cases += RenderCase(density, 160, 200)
+                cases += RenderCase(density, 240, 300)
+            }
+
+            cases += RenderCase("xhdpi", 240, 300, "noalpha") { setAlphaSliderVisible(false) }
+            cases += RenderCase("xhdpi", 240, 300, "wheel") { isHueWheelEnabled = true }
+            cases += RenderCase("xhdpi", 240, 300, "deuteranopia") {
+                colorVisionDeficiency = ColorVisionDeficiency.DEUTERANOPIA
+            }
+
+            return cases.map { arrayOf<Any>(it) }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Color
+import android.view.MotionEvent
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewLayoutTest {
+
+    @Test
+    fun repeatedPassesWithUnchangedInputsAreSkipped() {
+        val picker = drawnPicker()
+
+        repeat(5) { pass ->
+            picker.requestLayout()
+            picker.layoutAt(320, 400, top = pass * 50)
+        }
+        picker.drawOnce()
+
+        assertEquals(0, picker.renderStats.measurePasses)
+        assertEquals(0, picker.renderStats.panelLayouts)
+        assertEquals(0, picker.renderStats.cacheInvalidations)
+        assertEquals(0, picker.renderStats.bitmapAllocations)
+    }
+
+    @Test
+    fun paddingChangeAtTheSameSizeLaysThePanelsOut() {
+        val picker = drawnPicker()
+
+        picker.setPadding(20, 20, 20, 20)
+        picker.layoutAt(320, 400)
+
+        assertEquals(1, picker.renderStats.measurePasses)
+        assertEquals(1, picker.renderStats.panelLayouts)
+        // The sat/val and hue bitmaps change size and the alpha gradient moves.
+        assertEquals(3, picker.renderStats.cacheInvalidations)
+
+        picker.setColor(Color.RED)
+        picker.touch(MotionEvent.ACTION_DOWN, 10f, 10f)
+        picker.touch(MotionEvent.ACTION_UP, 10f, 10f)
+        assertEquals(Color.RED, picker.color)
+    }
+
+    @Test
+    fun hidingTheAlphaSliderOnlyDropsWhatChanged() {
+        val picker = drawnPicker()
+        val alphaY = picker.height - (6 + 5) * picker.resources.displayMetrics.density
+
+        picker.setAlphaSliderVisible(false)
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+
+        assertEquals(1, picker.renderStats.panelLayouts)
+        // The sat/val panel grows and the alpha gradient goes; the hue panel only moves.
+        assertEquals(2, picker.renderStats.cacheInvalidations)
+        assertEquals(1, picker.renderStats.satValRenders)
+        assertEquals(0, picker.renderStats.hueRenders)
+
+        picker.touch(MotionEvent.ACTION_DOWN, 200f, alphaY)
+        picker.touch(MotionEvent.ACTION_UP, 200f, alphaY)
+        assertEquals(0xff, Color.alpha(picker.color))
+    }
+
+    private fun drawnPicker(): ColorPickerView {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.setColor(Color.rgb(30, 140, 200))
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+        picker.renderStats.reset()
+        return picker
+    }
+}
@@ -0,0 +1,183 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.view.MotionEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+import java.lang.management.ManagementFactory
+import kotlin.math.cos
+import kotlin.math.sin
+
+/**
+ * Replays drag scripts against a laid out picker and holds the per-event cost of touch handling and drawing to
+ * budgets. Each script runs once to warm up, so one-off work like class loading and the first panel renders is not
+ * counted; what is left is the steady state cost of a drag.
+ */
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewPerfTest {
+
+    /**
+     * The steady state bytes per event, as measured with Robolectric 4.13 on sdk 34. Touch handling itself allocates
+     * nothing: the 128 bytes are Robolectric's, 56 for [ColorPickerView.invalidate] and up to 72 for reading the
+     * MotionEvent through its shadow. Drawing costs 64 bytes plus the shaders a script has to rebuild. The checks
+     * allow [TOUCH_MARGIN] and [DRAW_MARGIN] on top.
+     */
+    private class Budget(
+        val shadersPerEvent: Int,
+        val satValRendersPerEvent: Int,
+        val touchBytesPerEvent: Long = 128,
+        val drawBytesPerEvent: Long
+    )
+
+    private class DragScript(
+        val name: String,
+        val budget: Budget,
+        val configure: ColorPickerView.() -> Unit = {},
+        val path: (picker: ColorPickerView, t: Float) -> FloatArray
+    )
+
+    private val scripts = listOf(
+        // Moving sat/val only rebuilds the alpha gradient.
+        DragScript("satval", Budget(shadersPerEvent = 1, satValRendersPerEvent = 0, drawBytesPerEvent = 552)) { picker, t ->
+            val density = picker.resources.displayMetrics.density
+            floatArrayOf((20 + 260 * t) * density, (20 + 300 * t) * density)
+        },
+        // Moving hue re-renders the sat/val panel (sat and compose shaders) and rebuilds the alpha gradient.
+        DragScript("hue", Budget(shadersPerEvent = 3, satValRendersPerEvent = 1, drawBytesPerEvent = 1456)) { picker, t ->
+            val density = picker.resources.displayMetrics.density
+            floatArrayOf((10 + 290 * t) * density, picker.height - (6 + 5 + 20) * density)
+        },
+        DragScript("alpha", Budget(shadersPerEvent = 0, satValRendersPerEvent = 0, drawBytesPerEvent = 64)) { picker, t ->
+            val density = picker.resources.displayMetrics.density
+            floatArrayOf((10 + 290 * t) * density, picker.height - (6 + 5) * density)
+        },
+        DragScript(
+            "wheel",
+            Budget(shadersPerEvent = 3, satValRendersPerEvent = 1, drawBytesPerEvent = 1456),
+            { isHueWheelEnabled = true }
+        ) { picker, t ->
+            val density = picker.resources.displayMetrics.density
+            val radius = 145 * density
+            val angle = t * 5f
+            floatArrayOf(picker.width / 2f + radius * cos(angle), 160 * density + radius * sin(angle))
+        }
+    )
+
+    @Test
+    fun dragsStayWithinBudget() {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported)
+        threads!!.isThreadAllocatedMemoryEnabled = true
+
+        for (script in scripts) {
+            val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+            picker.setColor(Color.argb(0xc0, 30, 140, 200))
+            script.configure(picker)
+            picker.layoutAt(320, 400)
+
+            var listenerCalls = 0
+            picker.setOnColorChangedListener { listenerCalls++ }
+
+            val canvas = Canvas(Bitmap.createBitmap(picker.width, picker.height, Bitmap.Config.ARGB_8888))
+            val events = events(picker, script)
+
+            replay(picker, canvas, events, threads)
+            picker.renderStats.reset()
+            listenerCalls = 0
+
+            val (touchBytes, drawBytes) = replay(picker, canvas, events, threads)
+            val stats = picker.renderStats
+            val count = events.size
+
+            val budget = script.budget
+            val touchBudget = budget.touchBytesPerEvent + TOUCH_MARGIN
+            val drawBudget = budget.drawBytesPerEvent + DRAW_MARGIN
+            assertTrue(
+                "${script.name}: ${touchBytes / count} B per touch, at most $touchBudget allowed",
+                touchBytes / count <= touchBudget
+            )
+            assertTrue(
+                "${script.name}: ${drawBytes / count} B per draw, at most $drawBudget allowed",
+                drawBytes / count <= drawBudget
+            )
+            assertEquals("${script.name}: bitmaps", 0, stats.bitmapAllocations)
+            assertEquals("${script.name}: hue renders", 0, stats.hueRenders)
+            assertTrue(
+                "${script.name}: ${stats.shaderConstructions} shaders",
+                stats.shaderConstructions <= budget.shadersPerEvent * count
+            )
+            assertTrue(
+                "${script.name}: ${stats.satValRenders} sat/val renders",
+                stats.satValRenders <= budget.satValRendersPerEvent * count
+            )
+            assertEquals("${script.name}: listener calls", count, listenerCalls)
+
+            events.forEach { it.recycle() }
+        }
+    }
+
+    private fun replay(
+        picker: ColorPickerView,
+        canvas: Canvas,
+        events: List<MotionEvent>,
+        threads: com.sun.management.ThreadMXBean
+    ): Pair<Long, Long> {
+        val thread = Thread.currentThread().id
+        var touchBytes = 0L
+        var drawBytes = 0L
+
+        for (event in events) {
+            val start = threads.getThreadAllocatedBytes(thread)
+            picker.onTouchEvent(event)
+            val touched = threads.getThreadAllocatedBytes(thread)
+            picker.draw(canvas)
+            val drawn = threads.getThreadAllocatedBytes(thread)
+
+            touchBytes += touched - start
+            drawBytes += drawn - touched
+        }
+
+        return touchBytes to drawBytes
+    }
+
+    private fun events(picker: ColorPickerView, script: DragScript): List<MotionEvent> {
+        val steps = 60
+        val down = 1000L
+        val events = ArrayList<MotionEvent>()
+
+        for (step in 0..steps) {
+            val point = script.path(picker, step.toFloat() / steps)
+            val action = when (step) {
+                0 -> MotionEvent.ACTION_DOWN
+                steps -> MotionEvent.ACTION_UP
+                else -> MotionEvent.ACTION_MOVE
+            }
+            events += MotionEvent.obtain(down, down + step * 8L, action, point[0], point[1], 0)
+        }
+
+        return events
+    }
+
+    private companion object {
+
+        /** Below the smallest object, so a single allocation per touch fails. */
+        const val TOUCH_MARGIN = 15L
+
+        /**
+         * Drawing jitters by up to 40 bytes per event between runs, from the JIT and Robolectric's lazy setup; still
+         * well below one rebuilt shader, which costs over 450.
+         */
+        const val DRAW_MARGIN = 64L
+    }
+}
@@ -0,0 +1,170 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Color
+import android.view.MotionEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+import kotlin.random.Random
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewRecyclingTest {
+
+    private val swatches = IntArray(24) { Color.HSVToColor(floatArrayOf(it * 15f, 0.8f, 0.9f)) }
+
+    @Test
+    fun scrollingBindsReuseBitmapsAndRenderOncePerHueChange() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+        picker.renderStats.reset()
+
+        val random = Random(26)
+        val hsv = FloatArray(3)
+        var boundHue = Float.NaN
+        var hueChanges = 0
+
+        repeat(1000) { row ->
+            val color = swatches[random.nextInt(swatches.size)]
+            Color.colorToHSV(color, hsv)
+            if (hsv[0] != boundHue) {
+                hueChanges++
+                boundHue = hsv[0]
+            }
+
+            picker.bind(color) { }
+            picker.layoutAt(320, 400, top = (row % 7) * 400)
+            picker.drawOnce()
+            picker.unbind()
+        }
+
+        assertEquals(0, picker.renderStats.bitmapAllocations)
+        assertEquals(0, picker.renderStats.hueRenders)
+        assertEquals(hueChanges, picker.renderStats.satValRenders)
+    }
+
+    @Test
+    fun bindingAcrossASizeChangeReallocatesOnlyOnce() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+        picker.renderStats.reset()
+
+        picker.bind(swatches[3]) { }
+        picker.layoutAt(240, 300)
+        picker.drawOnce()
+        picker.unbind()
+
+        // The sat/val and hue panels both shrank; each gets one bitmap at the new size.
+        assertEquals(2, picker.renderStats.bitmapAllocations)
+        assertEquals(1, picker.renderStats.hueRenders)
+
+        picker.renderStats.reset()
+
+        repeat(50) { row ->
+            picker.bind(swatches[row % swatches.size]) { }
+            picker.layoutAt(240, 300, top = (row % 7) * 300)
+            picker.drawOnce()
+            picker.unbind()
+        }
+
+        assertEquals(0, picker.renderStats.bitmapAllocations)
+        assertEquals(0, picker.renderStats.hueRenders)
+        assertEquals(0, picker.renderStats.cacheInvalidations)
+    }
+
+    @Test
+    fun rebindingWithoutALayoutPassRendersBeforeTheDraw() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.bind(swatches[0]) { }
+        picker.layoutAt(320, 400)
+        picker.drawOnce()
+        picker.renderStats.reset()
+
+        picker.unbind()
+        picker.bind(swatches[8]) { }
+
+        assertEquals(0, picker.renderStats.bitmapAllocations)
+        assertEquals(1, picker.renderStats.satValRenders)
+        assertEquals(0, picker.renderStats.panelLayouts)
+
+        // The bind already rendered the new hue, so the draw only blits the cached panels.
+        picker.drawOnce()
+        picker.unbind()
+        picker.bind(swatches[8]) { }
+        picker.drawOnce()
+
+        assertEquals(0, picker.renderStats.bitmapAllocations)
+        assertEquals(1, picker.renderStats.satValRenders)
+        assertEquals(0, picker.renderStats.hueRenders)
+    }
+
+    @Test
+    fun unbindDetachesListener() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.layoutAt(320, 400)
+
+        var calls = 0
+        picker.bind(Color.RED) { calls++ }
+        picker.unbind()
+
+        picker.touch(MotionEvent.ACTION_DOWN, 100f, 100f)
+        picker.touch(MotionEvent.ACTION_UP, 120f, 120f)
+
+        assertEquals(0, calls)
+    }
+
+    @Test
+    fun unbindEndsStreamSubscriptions() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.layoutAt(320, 400)
+        picker.bind(Color.RED) { }
+
+        val seen = ArrayList<Int>()
+        var ended = false
+        val subscription = picker.subscribe({ it.run() }, ColorChangeStream.Policy.every()) { seen += it }
+        subscription.setOnEndListener { ended = true }
+
+        picker.touch(MotionEvent.ACTION_DOWN, 100f, 100f)
+        picker.touch(MotionEvent.ACTION_UP, 120f, 120f)
+        assertTrue(seen.isNotEmpty())
+
+        picker.unbind()
+        assertTrue(ended)
+
+        seen.clear()
+        picker.bind(Color.BLUE) { }
+        picker.touch(MotionEvent.ACTION_DOWN, 100f, 100f)
+        picker.touch(MotionEvent.ACTION_UP, 120f, 120f)
+
+        assertTrue(seen.isEmpty())
+    }
+
+    @Test
+    fun rebindingStartsANewHistory() {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.setHistoryCapacity(16)
+        picker.layoutAt(320, 400)
+
+        picker.bind(Color.RED) { }
+        picker.touch(MotionEvent.ACTION_DOWN, 100f, 100f)
+        picker.touch(MotionEvent.ACTION_MOVE, 140f, 160f)
+        picker.touch(MotionEvent.ACTION_UP, 140f, 160f)
+        assertTrue(picker.canUndo())
+
+        picker.unbind()
+        picker.bind(Color.BLUE) { }
+
+        assertFalse(picker.canUndo())
+        assertFalse(picker.canRedo())
+        assertEquals(Color.BLUE, picker.history.peek())
+    }
+}
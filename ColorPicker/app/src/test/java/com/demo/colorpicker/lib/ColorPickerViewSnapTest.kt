@@ -0,0 +1,211 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Color
+import android.os.Looper
+import android.view.MotionEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewSnapTest {
+
+    private val palette = intArrayOf(Color.RED, Color.GREEN, Color.BLUE, Color.WHITE, Color.BLACK, 0xff808080.toInt())
+
+    private fun picker(): ColorPickerView {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.layoutAt(320, 400)
+        return picker
+    }
+
+    @Test
+    fun snapsSetColorsAndKeepsAlpha() {
+        val picker = picker()
+        picker.setSnapPalette(palette)
+
+        picker.setColor(Color.argb(0x80, 240, 20, 10))
+
+        assertEquals(0, picker.snappedIndex)
+        assertEquals(Color.argb(0x80, 255, 0, 0), picker.color)
+    }
+
+    @Test
+    fun settingAPaletteSnapsTheCurrentColor() {
+        val picker = picker()
+        picker.setColor(Color.rgb(20, 30, 230))
+
+        picker.setSnapPalette(palette)
+
+        assertEquals(2, picker.snappedIndex)
+        assertEquals(Color.BLUE, picker.color)
+    }
+
+    @Test
+    fun buildsPalettesOnAnExecutor() {
+        val picker = picker()
+        picker.setColor(Color.rgb(20, 30, 230))
+
+        val pool = Executors.newSingleThreadExecutor()
+        picker.setSnapPalette(palette, pool)
+        pool.shutdown()
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS))
+        assertEquals(-1, picker.snappedIndex)
+
+        shadowOf(Looper.getMainLooper()).idle()
+
+        assertEquals(2, picker.snappedIndex)
+        assertEquals(Color.BLUE, picker.color)
+    }
+
+    @Test
+    fun laterPaletteWinsOverOneStillBuilding() {
+        val picker = picker()
+        val pending = ArrayList<Runnable>()
+
+        picker.setSnapPalette(palette) { pending += it }
+        picker.setSnapPalette(intArrayOf(Color.MAGENTA))
+        pending.forEach { it.run() }
+        shadowOf(Looper.getMainLooper()).idle()
+
+        assertEquals(1, picker.snapPalette.size())
+        assertEquals(Color.MAGENTA, picker.color)
+    }
+
+    @Test
+    fun swatchIsDrawnAsSeenWithTheSimulatedDeficiency() {
+        val swatch = Color.rgb(200, 80, 40)
+        val picker = picker()
+        picker.setSnapPalette(intArrayOf(swatch))
+
+        fun pixels(): IntArray {
+            val bitmap = picker.drawOnce()
+            val pixels = IntArray(bitmap.width * bitmap.height)
+            bitmap.getPixels(pixels, 0, bitmap.width, 0, 0, bitmap.width, bitmap.height)
+            return pixels
+        }
+
+        assertTrue(pixels().any { it == swatch })
+
+        picker.colorVisionDeficiency = ColorVisionDeficiency.DEUTERANOPIA
+        val simulated = pixels()
+
+        // The panels are filtered, so the unfiltered swatch color could only come from the tracker fill.
+        assertFalse(simulated.any { it == swatch })
+        // Like the panels, the swatch goes through the color matrix on its gamma encoded channels.
+        val m = ColorVisionDeficiency.DEUTERANOPIA.toColorMatrixArray()
+        val channels = intArrayOf(Color.red(swatch), Color.green(swatch), Color.blue(swatch))
+        val expected = IntArray(3) { row ->
+            Math.round(m[row * 5] * channels[0] + m[row * 5 + 1] * channels[1] + m[row * 5 + 2] * channels[2])
+                .coerceIn(0, 255)
+        }
+        assertTrue(simulated.any { pixel ->
+            Math.abs(Color.red(pixel) - expected[0]) <= 1 && Math.abs(Color.green(pixel) - expected[1]) <= 1
+                    && Math.abs(Color.blue(pixel) - expected[2]) <= 1
+        })
+    }
+
+    @Test
+    fun dragReportsOnlyPaletteColorsAndSettlesOnTheSwatch() {
+        val picker = picker()
+        picker.setColor(Color.RED)
+        picker.setSnapPalette(palette)
+
+        val reported = ArrayList<Int>()
+        picker.setOnColorChangedListener { reported += it }
+
+        picker.touch(MotionEvent.ACTION_DOWN, 40f, 40f)
+        for (step in 1..20) {
+            picker.touch(MotionEvent.ACTION_MOVE, 40f + step * 10f, 40f + step * 12f)
+            picker.drawOnce()
+        }
+        picker.touch(MotionEvent.ACTION_UP, 240f, 280f)
+
+        assertTrue(reported.isNotEmpty())
+        assertTrue(reported.all { it in palette })
+        assertTrue(reported.distinct().size > 1)
+
+        // Once released, re-deriving the color from the trackers lands on the same swatch.
+        val settled = picker.color
+        picker.setSnapPalette(null as IntArray?)
+        assertEquals(-1, picker.snappedIndex)
+        assertEquals(settled, picker.color)
+    }
+
+    @Test
+    fun settlingOnAGraySwatchKeepsTheHue() {
+        val picker = picker()
+        picker.setColor(Color.rgb(0, 200, 0))
+        picker.setSnapPalette(intArrayOf(0xff808080.toInt(), Color.rgb(0, 200, 0)))
+
+        picker.touch(MotionEvent.ACTION_DOWN, 40f, 150f)
+        picker.touch(MotionEvent.ACTION_MOVE, 0f, 150f)
+        picker.drawOnce()
+        assertEquals(0, picker.snappedIndex)
+
+        picker.renderStats.reset()
+        picker.touch(MotionEvent.ACTION_UP, 0f, 150f)
+        picker.drawOnce()
+
+        // A hue jump to red would re-render the sat/val panel.
+        assertEquals(0, picker.renderStats.satValRenders)
+        assertEquals(0xff808080.toInt(), picker.color)
+    }
+
+    @Test
+    fun cancelledDragsSettleOnTheSwatch() {
+        val picker = picker()
+        picker.setColor(Color.rgb(0, 200, 0))
+        picker.setSnapPalette(palette)
+
+        picker.touch(MotionEvent.ACTION_DOWN, 40f, 150f)
+        picker.touch(MotionEvent.ACTION_MOVE, 3f, 140f)
+        picker.touch(MotionEvent.ACTION_CANCEL, 3f, 140f)
+
+        val snapped = picker.color
+        assertTrue(snapped in palette)
+
+        picker.setSnapPalette(null as IntArray?)
+        assertEquals(snapped, picker.color)
+    }
+
+    @Test
+    fun alphaDragsKeepTheSwatch() {
+        val picker = picker()
+        picker.setSnapPalette(palette)
+        picker.setColor(Color.GREEN)
+
+        val alphaY = picker.height - 11f * picker.resources.displayMetrics.density
+        picker.touch(MotionEvent.ACTION_DOWN, 160f, alphaY)
+        picker.touch(MotionEvent.ACTION_UP, 160f, alphaY)
+
+        assertEquals(1, picker.snappedIndex)
+        assertNotEquals(0xff, Color.alpha(picker.color))
+        assertEquals(Color.GREEN and 0xffffff, picker.color and 0xffffff)
+    }
+
+    @Test
+    fun snappedSwatchIsDrawnInTheTracker() {
+        val swatch = Color.rgb(200, 0, 200)
+        val picker = picker()
+        picker.setColor(swatch)
+        val plain = picker.drawOnce()
+
+        picker.setSnapPalette(intArrayOf(swatch))
+
+        assertEquals(0, picker.snappedIndex)
+        assertEquals(swatch, picker.color)
+        assertFalse(plain.sameAs(picker.drawOnce()))
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo.colorpicker.lib
+
+import android.view.MotionEvent
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewTouchTest {
+
+    @Test
+    fun predictionNeverChangesCommittedColors() {
+        val plain = picker(predictionMillis = 0)
+        val predicted = picker(predictionMillis = 16)
+
+        assertArrayEquals(drag(plain), drag(predicted))
+    }
+
+    @Test
+    fun batchedSamplesCommitTheLatestOne() {
+        val picker = picker(predictionMillis = 16)
+        val down = 1000L
+        picker.dispatch(MotionEvent.obtain(down, down, MotionEvent.ACTION_DOWN, 40f, 60f, 0))
+
+        val move = MotionEvent.obtain(down, down + 4, MotionEvent.ACTION_MOVE, 60f, 70f, 0)
+        move.addBatch(down + 8, 80f, 80f, 1f, 1f, 0)
+        move.addBatch(down + 12, 100.5f, 90.5f, 1f, 1f, 0)
+        picker.dispatch(move)
+        val batched = picker.color
+
+        val single = picker(predictionMillis = 0)
+        single.dispatch(MotionEvent.obtain(down, down, MotionEvent.ACTION_DOWN, 40f, 60f, 0))
+        single.dispatch(MotionEvent.obtain(down, down + 12, MotionEvent.ACTION_MOVE, 100.5f, 90.5f, 0))
+
+        assertEquals(single.color, batched)
+    }
+
+    private fun drag(picker: ColorPickerView): IntArray {
+        val colors = ArrayList<Int>()
+        val down = 1000L
+        picker.dispatch(MotionEvent.obtain(down, down, MotionEvent.ACTION_DOWN, 30f, 40f, 0))
+        colors += picker.color
+
+        var time = down
+        for (step in 1..30) {
+            val x = 30f + step * 6.25f
+            val y = 40f + step * 3.5f
+            val move = MotionEvent.obtain(down, time + 4, MotionEvent.ACTION_MOVE, x, y, 0)
+            move.addBatch(time + 8, x + 3.1f, y + 1.7f, 1f, 1f, 0)
+            time += 8
+            picker.dispatch(move)
+            picker.drawOnce()
+            colors += picker.color
+        }
+
+        picker.dispatch(MotionEvent.obtain(down, time + 4, MotionEvent.ACTION_UP, 230f, 150f, 0))
+        picker.drawOnce()
+        colors += picker.color
+        return colors.toIntArray()
+    }
+
+    private fun picker(predictionMillis: Int): ColorPickerView {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.touchPredictionMillis = predictionMillis
+        picker.layoutAt(320, 400)
+        return picker
+    }
+
+    private fun ColorPickerView.dispatch(event: MotionEvent) {
+        onTouchEvent(event)
+        event.recycle()
+    }
+}
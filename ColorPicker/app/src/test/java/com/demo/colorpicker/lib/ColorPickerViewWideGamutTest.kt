@@ -0,0 +1,111 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Bitmap
+import android.graphics.Color
+import android.graphics.ColorSpace
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34])
+class ColorPickerViewWideGamutTest {
+
+    private val p3 = ColorSpace.get(ColorSpace.Named.DISPLAY_P3)
+
+    @Test
+    fun halfFloatPanelsTakeTwiceTheMemory() {
+        val srgb = laidOutPicker(wideGamut = false)
+        srgb.drawOnce()
+
+        val wide = laidOutPicker(wideGamut = true)
+        wide.drawOnce()
+
+        assertEquals(Bitmap.Config.ARGB_8888, srgb.panelBitmapConfig)
+        assertEquals(Bitmap.Config.RGBA_F16, wide.panelBitmapConfig)
+        assertEquals(2 * srgb.panelCacheBytes, wide.panelCacheBytes)
+    }
+
+    @Test
+    fun panelsOverBudgetFallBackTo8888() {
+        val srgb = laidOutPicker(wideGamut = false)
+        srgb.drawOnce()
+
+        val wide = laidOutPicker(wideGamut = true)
+        wide.panelCacheBudgetBytes = srgb.panelCacheBytes
+        wide.drawOnce()
+
+        assertEquals(Bitmap.Config.ARGB_8888, wide.panelBitmapConfig)
+        assertEquals(srgb.panelCacheBytes, wide.panelCacheBytes)
+    }
+
+    @Test
+    fun memoryPressureDropsHalfFloatPanels() {
+        val picker = laidOutPicker(wideGamut = true)
+        picker.drawOnce()
+        val halfFloatBytes = picker.panelCacheBytes
+
+        picker.onMemoryPressure()
+        assertEquals(0, picker.panelCacheBytes)
+
+        picker.drawOnce()
+        assertEquals(Bitmap.Config.ARGB_8888, picker.panelBitmapConfig)
+        assertEquals(halfFloatBytes / 2, picker.panelCacheBytes)
+    }
+
+    @Test
+    fun togglingWideGamutKeepsTheColor() {
+        val picker = laidOutPicker(wideGamut = false)
+        picker.setColor(Color.argb(200, 30, 140, 200))
+
+        picker.isWideGamutEnabled = true
+        assertTrue(picker.isWideGamutEnabled)
+        assertColorClose(Color.argb(200, 30, 140, 200), picker.color)
+
+        picker.isWideGamutEnabled = false
+        assertColorClose(Color.argb(200, 30, 140, 200), picker.color)
+    }
+
+    @Test
+    fun colorsOutsideOfSrgbSurviveAsLongColors() {
+        val picker = laidOutPicker(wideGamut = true)
+        picker.setColorLong(Color.pack(1f, 0f, 0f, 1f, p3))
+
+        val color = picker.colorLong
+        assertEquals(p3, Color.colorSpace(color))
+        assertEquals(1f, Color.red(color), 1e-4f)
+        assertEquals(0f, Color.green(color), 1e-4f)
+        assertEquals(0f, Color.blue(color), 1e-4f)
+        assertEquals(Color.RED, picker.color)
+
+        val srgb = ColorSpace.connect(ColorSpace.get(ColorSpace.Named.SRGB), p3)
+            .transform(30 / 255f, 140 / 255f, 200 / 255f)
+        picker.setColor(Color.rgb(30, 140, 200))
+        val fromInt = picker.colorLong
+        assertEquals(srgb[0], Color.red(fromInt), 1e-3f)
+        assertEquals(srgb[1], Color.green(fromInt), 1e-3f)
+        assertEquals(srgb[2], Color.blue(fromInt), 1e-3f)
+    }
+
+    private fun laidOutPicker(wideGamut: Boolean): ColorPickerView {
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.isWideGamutEnabled = wideGamut
+        picker.layoutAt(320, 400)
+        return picker
+    }
+
+    private fun assertColorClose(expected: Int, actual: Int) {
+        for (shift in intArrayOf(24, 16, 8, 0)) {
+            assertTrue(
+                "expected #${Integer.toHexString(expected)} but was #${Integer.toHexString(actual)}",
+                Math.abs((expected shr shift and 0xff) - (actual shr shift and 0xff)) <= 1
+            )
+        }
+    }
+}
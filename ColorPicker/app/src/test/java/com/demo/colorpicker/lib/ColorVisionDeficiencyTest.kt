@@ -0,0 +1,77 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+class ColorVisionDeficiencyTest {
+
+    private val inputs = intArrayOf(
+        0xffff0000.toInt(), 0xff00ff00.toInt(), 0xff0000ff.toInt(), 0xffffffff.toInt(),
+        0xff808080.toInt(), 0xffff8000.toInt(), 0xff1e8cc8.toInt()
+    )
+
+    // Linearize, apply the Machado et al. matrix in double precision, encode and round.
+    private val references = mapOf(
+        ColorVisionDeficiency.PROTANOPIA to intArrayOf(
+            0x6d5f00, 0xffe500, 0x0059ff, 0xffffff, 0x808080, 0xa69100, 0x6f8dcb
+        ),
+        ColorVisionDeficiency.DEUTERANOPIA to intArrayOf(
+            0xa39000, 0xefd63a, 0x003dfb, 0xffffff, 0x808080, 0xc4ae00, 0x597ec7
+        ),
+        ColorVisionDeficiency.TRITANOPIA to intArrayOf(
+            0xff000f, 0x00f7d9, 0x006b96, 0xffffff, 0x808080, 0xff626d, 0x009ba1
+        )
+    )
+
+    @Test
+    fun matchesReferenceValuesWithinOneLevel() {
+        for ((deficiency, expected) in references) {
+            for (i in inputs.indices) {
+                val actual = deficiency.simulate(inputs[i])
+                for (shift in intArrayOf(16, 8, 0)) {
+                    val e = expected[i] shr shift and 0xff
+                    val a = actual shr shift and 0xff
+                    assertTrue(
+                        "$deficiency #${Integer.toHexString(inputs[i])}: expected ${Integer.toHexString(expected[i])}" +
+                                " but was ${Integer.toHexString(actual)}",
+                        Math.abs(e - a) <= 1
+                    )
+                }
+            }
+        }
+    }
+
+    @Test
+    fun keepsAlphaAndNeutrals() {
+        for (deficiency in ColorVisionDeficiency.values()) {
+            assertEquals(0x40ffffff, deficiency.simulate(0x40ffffff))
+            assertEquals(0x80000000.toInt(), deficiency.simulate(0x80000000.toInt()))
+        }
+    }
+
+    @Test
+    fun batchTransformMatchesSingleColors() {
+        val random = Random(32)
+        val palette = IntArray(4096) { random.nextInt() }
+
+        for (deficiency in ColorVisionDeficiency.values()) {
+            val batch = IntArray(palette.size)
+            deficiency.simulate(palette, 0, batch, 0, palette.size)
+
+            assertArrayEquals(IntArray(palette.size) { deficiency.simulate(palette[it]) }, batch)
+        }
+    }
+
+    @Test
+    fun colorMatrixCarriesTheSameCoefficients() {
+        val array = ColorVisionDeficiency.PROTANOPIA.toColorMatrixArray()
+
+        assertEquals(20, array.size)
+        assertEquals(0.152286f, array[0], 0f)
+        assertEquals(1.051998f, array[12], 0f)
+        assertEquals(1f, array[18], 0f)
+    }
+}
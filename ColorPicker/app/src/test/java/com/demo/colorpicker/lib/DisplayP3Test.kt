@@ -0,0 +1,72 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class DisplayP3Test {
+
+    @Test
+    fun srgbPrimariesMatchReferenceValues() {
+        // Reference values from android.graphics.ColorSpace.connect(SRGB, DISPLAY_P3).
+        assertP3(0xffff0000.toInt(), 0.9175f, 0.2003f, 0.1386f)
+        assertP3(0xff00ff00.toInt(), 0.4584f, 0.9853f, 0.2983f)
+        assertP3(0xff0000ff.toInt(), 0f, 0f, 0.9596f)
+        assertP3(0xffffffff.toInt(), 1f, 1f, 1f)
+        assertP3(0xff808080.toInt(), 0.502f, 0.502f, 0.502f)
+    }
+
+    @Test
+    fun srgbColorsRoundTripWithinOneLevel() {
+        val p3 = FloatArray(3)
+        var color = 0
+        while (color < 0x1000000) {
+            val argb = 0xff000000.toInt() or color
+            DisplayP3.fromSrgb(argb, p3)
+
+            assertTrue(DisplayP3.isInSrgb(p3[0], p3[1], p3[2]))
+
+            val back = DisplayP3.toSrgb(0xff, p3[0], p3[1], p3[2])
+            for (shift in intArrayOf(16, 8, 0)) {
+                val expected = argb shr shift and 0xff
+                val actual = back shr shift and 0xff
+                assertTrue(
+                    "#${Integer.toHexString(argb)} came back as #${Integer.toHexString(back)}",
+                    Math.abs(expected - actual) <= 1
+                )
+            }
+            color += 31
+        }
+    }
+
+    @Test
+    fun p3PrimariesAreOutsideOfSrgbAndClip() {
+        assertFalse(DisplayP3.isInSrgb(1f, 0f, 0f))
+        assertFalse(DisplayP3.isInSrgb(0f, 1f, 0f))
+        assertEquals(0xffff0000.toInt(), DisplayP3.toSrgb(0xff, 1f, 0f, 0f))
+        assertEquals(0x8000ff00.toInt(), DisplayP3.toSrgb(0x80, 0f, 1f, 0f))
+    }
+
+    @Test
+    fun floatHsvRoundTrips() {
+        val hsv = FloatArray(3)
+        val rgb = FloatArray(3)
+        for (r in 0..10) for (g in 0..10) for (b in 0..10) {
+            ColorMath.rgbToHsv(r / 10f, g / 10f, b / 10f, hsv)
+            ColorMath.hsvToRgb(hsv[0], hsv[1], hsv[2], rgb)
+
+            assertEquals(r / 10f, rgb[0], 1e-5f)
+            assertEquals(g / 10f, rgb[1], 1e-5f)
+            assertEquals(b / 10f, rgb[2], 1e-5f)
+        }
+    }
+
+    private fun assertP3(color: Int, r: Float, g: Float, b: Float) {
+        val p3 = FloatArray(3)
+        DisplayP3.fromSrgb(color, p3)
+        assertEquals(r, p3[0], 1e-3f)
+        assertEquals(g, p3[1], 1e-3f)
+        assertEquals(b, p3[2], 1e-3f)
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import java.io.File
+import java.io.FileOutputStream
+
+/**
+ * Compares rendered bitmaps with the PNGs under src/test/resources/golden.
+ *
+ * A missing golden fails the test and writes the current output to build/golden-candidates for review; goldens are
+ * only created or replaced by running the tests with -PrecordGoldens=true, which writes the output over them. Small
+ * per-channel differences are tolerated so goldens survive Skia updates in Robolectric, larger ones fail and leave
+ * the actual image in build/golden-failures.
+ */
+internal object GoldenImages {
+
+    private const val CHANNEL_TOLERANCE = 3
+    private const val MAX_DIFFERING_FRACTION = 0.001
+
+    fun verify(name: String, actual: Bitmap) {
+        if (System.getProperty("colorpicker.recordGoldens") == "true") {
+            val dir = File(System.getProperty("colorpicker.goldenDir") ?: "src/test/resources/golden")
+            write(actual, File(dir, "$name.png"))
+            return
+        }
+
+        val stream = GoldenImages::class.java.getResourceAsStream("/golden/$name.png")
+        if (stream == null) {
+            val candidate = File("build/golden-candidates/$name.png")
+            write(actual, candidate)
+            fail("No golden for $name, wrote ${candidate.absolutePath}; record it with -PrecordGoldens=true")
+            return
+        }
+
+        val expected = stream.use { BitmapFactory.decodeStream(it) }
+        assertEquals("$name width", expected.width, actual.width)
+        assertEquals("$name height", expected.height, actual.height)
+
+        val width = actual.width
+        val expectedPixels = IntArray(width * actual.height)
+        val actualPixels = IntArray(width * actual.height)
+        expected.getPixels(expectedPixels, 0, width, 0, 0, width, actual.height)
+        actual.getPixels(actualPixels, 0, width, 0, 0, width, actual.height)
+
+        var differing = 0
+        for (i in actualPixels.indices) {
+            if (!close(expectedPixels[i], actualPixels[i])) {
+                differing++
+            }
+        }
+
+        val allowed = (actualPixels.size * MAX_DIFFERING_FRACTION).toInt()
+        if (differing > allowed) {
+            write(actual, File("build/golden-failures/$name.png"))
+        }
+        assertTrue("$name: $differing pixels differ from the golden, at most $allowed allowed", differing <= allowed)
+    }
+
+    private fun close(expected: Int, actual: Int): Boolean {
+        for (shift in intArrayOf(24, 16, 8, 0)) {
+            if (Math.abs((expected shr shift and 0xff) - (actual shr shift and 0xff)) > CHANNEL_TOLERANCE) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private fun write(bitmap: Bitmap, file: File) {
+        file.parentFile?.mkdirs()
+        FileOutputStream(file).use { bitmap.compress(Bitmap.CompressFormat.PNG, 100, it) }
+    }
+}
@@ -0,0 +1,197 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Color
+import android.os.Looper
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.GraphicsMode
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+@RunWith(RobolectricTestRunner::class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+@Config(sdk = [34], shadows = [ShadowDecodingRegionDecoder::class])
+class ImageHistogramLoaderTest {
+
+    private val workers = Executors.newFixedThreadPool(3)
+    private val direct = Executor { it.run() }
+
+    @After
+    fun shutDown() {
+        workers.shutdownNow()
+    }
+
+    private fun encode(width: Int, height: Int, color: (x: Int, y: Int) -> Int): ByteArray {
+        val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                bitmap.setPixel(x, y, color(x, y))
+            }
+        }
+        val bytes = ByteArrayOutputStream()
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, bytes)
+        return bytes.toByteArray()
+    }
+
+    private fun gradient(x: Int, y: Int) = Color.rgb(x % 256, y % 256, (x * y) % 256)
+
+    private class Recorder : ImageHistogramLoader.Listener {
+        val done = CountDownLatch(1)
+        val tiles: MutableList<Int> = Collections.synchronizedList(ArrayList())
+        var tileCount = 0
+        var completed: ImageHistogram? = null
+        var error: IOException? = null
+
+        override fun onTileCounted(histogram: ImageHistogram, tilesDone: Int, tileCount: Int) {
+            tiles += tilesDone
+            this.tileCount = tileCount
+        }
+
+        override fun onComplete(histogram: ImageHistogram) {
+            completed = histogram
+            done.countDown()
+        }
+
+        override fun onError(e: IOException) {
+            error = e
+            done.countDown()
+        }
+    }
+
+    @Test
+    fun tiledCountMatchesTheWholeImage() {
+        val png = encode(300, 200, ::gradient)
+        val recorder = Recorder()
+
+        val task = ImageHistogramLoader { ByteArrayInputStream(png) }
+            .setTileSize(64)
+            .setParallelism(3)
+            .start(workers, direct, recorder)
+
+        assertTrue(recorder.done.await(30, TimeUnit.SECONDS))
+        assertNull(recorder.error)
+        assertEquals(task.histogram, recorder.completed)
+
+        val decoded = BitmapFactory.decodeByteArray(png, 0, png.size)
+        val pixels = IntArray(300 * 200)
+        decoded.getPixels(pixels, 0, 300, 0, 0, 300, 200)
+        val expected = ImageHistogram()
+        expected.add(pixels, 0, pixels.size)
+
+        val actual = task.histogram
+        assertEquals(expected.total(), actual.total())
+        for (h in 0 until ImageHistogram.HUE_BINS) {
+            for (s in 0 until ImageHistogram.SAT_BINS) {
+                for (v in 0 until ImageHistogram.VAL_BINS) {
+                    assertEquals(expected.count(h, s, v), actual.count(h, s, v))
+                }
+            }
+        }
+
+        assertEquals(20, recorder.tileCount)
+        assertEquals((1..20).toList(), recorder.tiles.sorted())
+    }
+
+    @Test
+    fun sampleSizeCountsFewerPixels() {
+        val png = encode(300, 200, ::gradient)
+        val recorder = Recorder()
+
+        val task = ImageHistogramLoader { ByteArrayInputStream(png) }
+            .setTileSize(64)
+            .setSampleSize(2)
+            .start(workers, direct, recorder)
+
+        assertTrue(recorder.done.await(30, TimeUnit.SECONDS))
+        assertNull(recorder.error)
+        // 64 pixel tiles decode to 32, the 44 wide and 8 high edge tiles to 22 and 4.
+        assertEquals((32 * 4 + 22) * (32 * 3 + 4).toLong(), task.histogram.total())
+    }
+
+    @Test
+    fun reportsSourceFailures() {
+        val recorder = Recorder()
+
+        ImageHistogramLoader { throw IOException("gone") }.start(workers, direct, recorder)
+
+        assertTrue(recorder.done.await(30, TimeUnit.SECONDS))
+        assertEquals("gone", recorder.error?.message)
+        assertNull(recorder.completed)
+        assertTrue(recorder.tiles.isEmpty())
+    }
+
+    @Test
+    fun reportsRejectedWorkers() {
+        val png = encode(300, 200, ::gradient)
+        val recorder = Recorder()
+        // Runs the planning task, then rejects the extra workers it forks like a shut down pool would.
+        var accepted = 0
+        val rejecting = Executor { command ->
+            if (accepted++ > 0) throw RejectedExecutionException()
+            command.run()
+        }
+
+        val task = ImageHistogramLoader { ByteArrayInputStream(png) }
+            .setTileSize(64)
+            .setParallelism(3)
+            .start(rejecting, direct, recorder)
+
+        assertTrue(recorder.done.await(30, TimeUnit.SECONDS))
+        assertTrue(recorder.error?.cause is RejectedExecutionException)
+        assertNull(recorder.completed)
+        assertTrue(recorder.tiles.isEmpty())
+        assertTrue(task.isDone())
+    }
+
+    @Test
+    fun pickerOverlaysImageColorsOnceCounted() {
+        val png = encode(256, 256) { x, y -> Color.rgb(255, x / 4, y / 4) }
+
+        val picker = ColorPickerView(RuntimeEnvironment.getApplication())
+        picker.setColor(Color.RED)
+        picker.layoutAt(320, 400)
+        val plain = picker.drawOnce()
+
+        val loader = ImageHistogramLoader { ByteArrayInputStream(png) }.setTileSize(100)
+        val task = picker.showImageColors(loader, workers)
+        assertNotNull(picker.imageHistogram)
+
+        val deadline = System.currentTimeMillis() + 30_000
+        while (!task.isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertTrue(task.isDone())
+        shadowOf(Looper.getMainLooper()).idle()
+
+        assertEquals(256L * 256L, picker.imageHistogram.total())
+        picker.renderStats.reset()
+        assertFalse(plain.sameAs(picker.drawOnce()))
+        assertEquals(1, picker.renderStats.bitmapAllocations)
+
+        // Unchanged histogram and hue bin: the overlay is drawn from the cached bitmap.
+        picker.drawOnce()
+        assertEquals(1, picker.renderStats.bitmapAllocations)
+
+        picker.setImageHistogram(null)
+        assertTrue(plain.sameAs(picker.drawOnce()))
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Test
+import kotlin.random.Random
+
+class ImageHistogramTest {
+
+    private fun rgb(r: Int, g: Int, b: Int) = (0xff shl 24) or (r shl 16) or (g shl 8) or b
+
+    @Test
+    fun binsPrimariesAtFullSaturationAndValue() {
+        val histogram = ImageHistogram()
+        histogram.add(intArrayOf(rgb(255, 0, 0), rgb(0, 255, 0), rgb(0, 0, 255)), 0, 3)
+
+        assertEquals(3L, histogram.total())
+        assertEquals(1, histogram.count(0, 31, 31))
+        assertEquals(1, histogram.count(12, 31, 31))
+        assertEquals(1, histogram.count(24, 31, 31))
+    }
+
+    @Test
+    fun skipsTransparentPixelsAndHonoursTheRange() {
+        val histogram = ImageHistogram()
+        val pixels = intArrayOf(rgb(10, 10, 10), 0x00ff0000, rgb(255, 0, 0), rgb(0, 0, 255))
+
+        histogram.add(pixels, 1, 2)
+
+        assertEquals(1L, histogram.total())
+        assertEquals(1, histogram.count(rgb(255, 0, 0)))
+        assertEquals(0, histogram.count(rgb(0, 0, 255)))
+    }
+
+    @Test
+    fun mergeMatchesAddingSequentially() {
+        val random = Random(7)
+        val pixels = IntArray(10_000) { random.nextInt() or (0xff shl 24) }
+
+        val sequential = ImageHistogram()
+        sequential.add(pixels, 0, pixels.size)
+
+        val merged = ImageHistogram()
+        for (start in pixels.indices step 1_000) {
+            val tile = ImageHistogram()
+            tile.add(pixels, start, 1_000)
+            merged.merge(tile)
+        }
+
+        assertEquals(sequential.total(), merged.total())
+        for (h in 0 until ImageHistogram.HUE_BINS) {
+            for (s in 0 until ImageHistogram.SAT_BINS) {
+                for (v in 0 until ImageHistogram.VAL_BINS) {
+                    assertEquals(sequential.count(h, s, v), merged.count(h, s, v))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun versionChangesOnEveryUpdate() {
+        val histogram = ImageHistogram()
+        val versions = HashSet<Int>()
+        versions += histogram.version()
+
+        histogram.add(intArrayOf(rgb(1, 2, 3)), 0, 1)
+        versions += histogram.version()
+        histogram.merge(ImageHistogram().apply { add(intArrayOf(rgb(4, 5, 6)), 0, 1) })
+        versions += histogram.version()
+        histogram.clear()
+        versions += histogram.version()
+
+        assertEquals(4, versions.size)
+        assertEquals(0L, histogram.total())
+    }
+
+    @Test
+    fun densityCountsNearbyHuesAndAllGrays() {
+        val histogram = ImageHistogram()
+        histogram.add(
+            intArrayOf(
+                rgb(255, 0, 0), // hue 0
+                rgb(255, 40, 0), // hue 9.4, same bin
+                rgb(255, 0, 40), // hue 350.6, one bin below across the wrap
+                rgb(0, 255, 0), // hue 120, outside the window
+                rgb(128, 128, 128) // gray, counted for every hue
+            ), 0, 5
+        )
+
+        val out = IntArray(ImageHistogram.SAT_BINS * ImageHistogram.VAL_BINS)
+        val max = histogram.satValDensity(5f, 1, out)
+
+        val satBin = ImageHistogram.SAT_BINS - 1
+        val valBin = ImageHistogram.VAL_BINS - 1
+        assertEquals(3, out[valBin * ImageHistogram.SAT_BINS + satBin])
+        assertEquals(1, out[16 * ImageHistogram.SAT_BINS])
+        assertEquals(3, max)
+        assertEquals(4, out.sum())
+
+        histogram.satValDensity(120f, 0, out)
+        assertEquals(1, out[valBin * ImageHistogram.SAT_BINS + satBin])
+        assertEquals(2, out.sum())
+    }
+
+    @Test
+    fun hueBinWrapsAroundTheCircle() {
+        assertEquals(0, ImageHistogram.hueBin(360f))
+        assertEquals(35, ImageHistogram.hueBin(-1f))
+        assertNotEquals(ImageHistogram.hueBin(9.9f), ImageHistogram.hueBin(10f))
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+class PaletteIndexTest {
+
+    @Test
+    fun findsEveryEntryItself() {
+        val palette = Palettes.uniform(1000, 1)
+        val index = PaletteIndex(palette)
+
+        for ((i, color) in palette.withIndex()) {
+            assertEquals(palette.indexOf(color), index.nearest(color))
+            assertEquals(i, palette.indexOf(index.color(i)))
+        }
+    }
+
+    @Test
+    fun matchesExhaustiveSearch() {
+        val random = Random(2)
+
+        for (palette in Palettes.all()) {
+            val index = PaletteIndex(palette.colors)
+            val queries = if (palette.colors.size > 4096) 500 else 5000
+
+            repeat(queries) {
+                val color = random.nextInt()
+                assertEquals("$palette, query ${Integer.toHexString(color)}",
+                    index.nearestExhaustive(color), index.nearest(color))
+            }
+        }
+    }
+
+    @Test
+    fun clusteredPalettesScanFewEntriesPerLookup() {
+        val random = Random(4)
+
+        for (palette in Palettes.all()) {
+            val index = PaletteIndex(palette.colors)
+            var total = 0L
+            var most = 0
+
+            repeat(2000) {
+                index.nearest(random.nextInt())
+                total += index.lastScanned()
+                most = maxOf(most, index.lastScanned())
+            }
+
+            // Staying under the cap means every lookup was exact; the mean is what a drag pays per touch event.
+            assertTrue("$palette: $most entries", most < PaletteIndex.MAX_LOOKUP_SCAN)
+            assertTrue("$palette: ${total / 2000} entries on average", total / 2000 < 100)
+        }
+    }
+
+    @Test
+    fun ignoresAlpha() {
+        val index = PaletteIndex(intArrayOf(0x00ff0000, 0x8000ff00.toInt(), 0xff0000ff.toInt()))
+
+        assertEquals(0, index.nearest(0xffee1100.toInt()))
+        assertEquals(1, index.nearest(0x0011ee00))
+        assertEquals(2, index.nearest(0x400000ee))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectsEmptyPalettes() {
+        PaletteIndex(IntArray(0))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectsOversizedPalettes() {
+        PaletteIndex(IntArray(PaletteIndex.MAX_SIZE + 1))
+    }
+}
@@ -0,0 +1,59 @@
+package com.demo.colorpicker.lib
+
+import kotlin.random.Random
+
+/**
+ * Palettes for exercising [PaletteIndex]: uniform random colors, which spread over the whole gamut, and the shapes real
+ * palettes take, which are the hard cases for spatial indexes.
+ */
+internal object Palettes {
+
+    val SIZES = listOf(16, 256, 4096, 65536)
+
+    class Palette(val name: String, val colors: IntArray) {
+        override fun toString() = "$name (${colors.size} colors)"
+    }
+
+    fun uniform(size: Int, seed: Int): IntArray {
+        val random = Random(seed)
+        return IntArray(size) { random.nextInt() or (0xff shl 24) }
+    }
+
+    /**
+     * A brand palette: thousands of shades of one blue, plus black and white far away from them.
+     */
+    fun blues(size: Int, seed: Int): IntArray {
+        val random = Random(seed)
+        val colors = IntArray(size) { rgb(random.nextInt(60), random.nextInt(120), 120 + random.nextInt(136)) }
+        if (size > 2) {
+            colors[size - 2] = rgb(0, 0, 0)
+            colors[size - 1] = rgb(255, 255, 255)
+        }
+        return colors
+    }
+
+    /**
+     * A cluster only a few levels wide per channel, so large sizes are mostly duplicates.
+     */
+    fun tight(size: Int, seed: Int): IntArray {
+        val random = Random(seed)
+        return IntArray(size) { rgb(20 + random.nextInt(8), 40 + random.nextInt(16), 200 + random.nextInt(32)) }
+    }
+
+    fun grays(size: Int): IntArray = IntArray(size) { rgb(it % 256, it % 256, it % 256) }
+
+    fun all(): List<Palette> {
+        val palettes = ArrayList<Palette>()
+        for (size in SIZES) {
+            palettes += Palette("uniform", uniform(size, size))
+            palettes += Palette("blues", blues(size, size))
+            palettes += Palette("tight", tight(size, size))
+        }
+        palettes += Palette("grays", grays(256))
+        palettes += Palette("single", intArrayOf(rgb(0x33, 0x66, 0x99)))
+        palettes += Palette("duplicates", IntArray(4096) { rgb(0x33, 0x66, 0x99) })
+        return palettes
+    }
+
+    private fun rgb(r: Int, g: Int, b: Int) = (0xff shl 24) or (r shl 16) or (g shl 8) or b
+}
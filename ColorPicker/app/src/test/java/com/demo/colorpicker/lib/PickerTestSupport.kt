@@ -0,0 +1,28 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.os.SystemClock
+import android.view.MotionEvent
+import android.view.View.MeasureSpec
+
+internal fun ColorPickerView.layoutAt(width: Int, height: Int, top: Int = 0) {
+    measure(
+        MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY)
+    )
+    layout(0, top, measuredWidth, top + measuredHeight)
+}
+
+internal fun ColorPickerView.drawOnce(): Bitmap {
+    val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+    draw(Canvas(bitmap))
+    return bitmap
+}
+
+internal fun ColorPickerView.touch(action: Int, x: Float, y: Float) {
+    val now = SystemClock.uptimeMillis()
+    val event = MotionEvent.obtain(now, now, action, x, y, 0)
+    onTouchEvent(event)
+    event.recycle()
+}
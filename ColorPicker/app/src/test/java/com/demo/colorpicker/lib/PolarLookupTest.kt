@@ -0,0 +1,44 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+class PolarLookupTest {
+
+    @Test
+    fun angleMatchesAtan2AllAroundTheCircle() {
+        val random = Random(27)
+        repeat(100_000) {
+            val dx = random.nextFloat() * 2000f - 1000f
+            val dy = random.nextFloat() * 2000f - 1000f
+
+            var expected = Math.toDegrees(Math.atan2(dy.toDouble(), dx.toDouble())).toFloat()
+            if (expected < 0f) expected += 360f
+
+            val actual = PolarLookup.angleDegrees(dx, dy)
+            val error = Math.abs(expected - actual).let { Math.min(it, 360f - it) }
+
+            assertTrue("($dx, $dy): expected $expected but was $actual", error < 0.01f)
+        }
+    }
+
+    @Test
+    fun axesMapToQuarterTurnsClockwise() {
+        assertEquals(0f, PolarLookup.angleDegrees(10f, 0f), 0f)
+        assertEquals(90f, PolarLookup.angleDegrees(0f, 10f), 0f)
+        assertEquals(180f, PolarLookup.angleDegrees(-10f, 0f), 0f)
+        assertEquals(270f, PolarLookup.angleDegrees(0f, -10f), 0f)
+        assertEquals(0f, PolarLookup.angleDegrees(0f, 0f), 0f)
+    }
+
+    @Test
+    fun annulusExcludesCenterAndOutside() {
+        assertTrue(PolarLookup.inAnnulus(0f, 45f, 40f, 50f))
+        assertTrue(PolarLookup.inAnnulus(-30f, -30f, 40f, 50f))
+        assertFalse(PolarLookup.inAnnulus(5f, 5f, 40f, 50f))
+        assertFalse(PolarLookup.inAnnulus(40f, 40f, 40f, 50f))
+    }
+}
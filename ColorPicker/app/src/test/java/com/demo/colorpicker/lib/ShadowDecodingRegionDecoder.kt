@@ -0,0 +1,71 @@
+package com.demo.colorpicker.lib
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.BitmapRegionDecoder
+import android.graphics.Rect
+import org.robolectric.annotation.Implementation
+import org.robolectric.annotation.Implements
+import org.robolectric.shadow.api.Shadow
+import org.robolectric.util.ReflectionHelpers
+import org.robolectric.util.ReflectionHelpers.ClassParameter
+import java.io.InputStream
+
+/**
+ * Robolectric's own region decoder only knows the image size and returns blank tiles, even in native graphics mode.
+ * This one decodes the whole image with [BitmapFactory] and copies the region out of it, honouring
+ * [BitmapFactory.Options.inSampleSize] by taking every n-th pixel and [BitmapFactory.Options.inBitmap] by writing
+ * into its top left corner, like the platform decoder does.
+ */
+@Implements(BitmapRegionDecoder::class)
+class ShadowDecodingRegionDecoder {
+
+    private lateinit var image: Bitmap
+
+    @Implementation
+    fun getWidth(): Int = image.width
+
+    @Implementation
+    fun getHeight(): Int = image.height
+
+    @Implementation
+    fun decodeRegion(rect: Rect, options: BitmapFactory.Options?): Bitmap {
+        val source = image
+        val sampleSize = Math.max(1, options?.inSampleSize ?: 1)
+        val width = (rect.width() + sampleSize - 1) / sampleSize
+        val height = (rect.height() + sampleSize - 1) / sampleSize
+
+        val row = IntArray(rect.width())
+        val pixels = IntArray(width * height)
+        for (y in 0 until height) {
+            source.getPixels(row, 0, rect.width(), rect.left, rect.top + y * sampleSize, rect.width(), 1)
+            for (x in 0 until width) {
+                pixels[y * width + x] = row[x * sampleSize]
+            }
+        }
+
+        val reused = options?.inBitmap
+        val bitmap = if (reused != null && reused.width >= width && reused.height >= height) {
+            reused
+        } else {
+            Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        }
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height)
+        return bitmap
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Implementation
+        fun newInstance(stream: InputStream, @Suppress("UNUSED_PARAMETER") isShareable: Boolean): BitmapRegionDecoder {
+            val bytes = stream.readBytes()
+            val decoder = ReflectionHelpers.callConstructor(
+                BitmapRegionDecoder::class.java, ClassParameter.from(Long::class.javaPrimitiveType, 0L)
+            )
+            Shadow.extract<ShadowDecodingRegionDecoder>(decoder).image =
+                BitmapFactory.decodeByteArray(bytes, 0, bytes.size)
+            return decoder
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.RandomAccessFile
+
+class SwatchStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private fun newFile() = folder.newFile().also { it.delete() }
+
+    @Test
+    fun recentsAreDistinctAndNewestFirst() {
+        SwatchStore.open(newFile()).use { store ->
+            store.markUsed(1, 10)
+            store.markUsed(2, 20)
+            store.markUsed(1, 30)
+            store.markUsed(3, 40)
+
+            val out = IntArray(8)
+            val count = store.recents(out)
+
+            assertArrayEquals(intArrayOf(3, 1, 2), out.copyOf(count))
+        }
+    }
+
+    @Test
+    fun stateSurvivesReopen() {
+        val file = newFile()
+        SwatchStore.open(file).use { store ->
+            store.markUsed(0xffff0000.toInt(), 100)
+            store.markUsed(0xff00ff00.toInt(), 200)
+            store.setFavorite(0xff0000ff.toInt(), true)
+            store.remove(0xffff0000.toInt())
+        }
+
+        SwatchStore.open(file).use { store ->
+            val out = IntArray(4)
+            assertEquals(1, store.recents(out))
+            assertEquals(0xff00ff00.toInt(), out[0])
+            assertEquals(200L, store.lastUsed(0xff00ff00.toInt()))
+            assertEquals(-1L, store.lastUsed(0xffff0000.toInt()))
+            assertTrue(store.isFavorite(0xff0000ff.toInt()))
+            assertFalse(store.isFavorite(0xffff0000.toInt()))
+        }
+    }
+
+    @Test
+    fun tornTrailingRecordIsIgnored() {
+        val file = newFile()
+        SwatchStore.open(file).use { store ->
+            store.markUsed(7, 1)
+            store.markUsed(8, 2)
+        }
+        RandomAccessFile(file, "rw").use { it.setLength(it.length() - 5) }
+
+        SwatchStore.open(file).use { store ->
+            assertEquals(1, store.recordCount())
+            store.markUsed(9, 3)
+
+            val out = IntArray(4)
+            assertArrayEquals(intArrayOf(9, 7), out.copyOf(store.recents(out)))
+        }
+    }
+
+    @Test
+    fun compactionKeepsLatestStateOnly() {
+        val file = newFile()
+        SwatchStore.open(file).use { store ->
+            for (i in 0 until 10_000) store.markUsed(i % 100, i.toLong())
+            store.setFavorite(5, true)
+            store.remove(42)
+
+            assertTrue(store.compactIfNeeded())
+            assertEquals(100, store.recordCount())
+
+            val out = IntArray(3)
+            store.recents(out)
+            assertArrayEquals(intArrayOf(99, 98, 97), out)
+            assertEquals(9_905L, store.lastUsed(5))
+            assertTrue(store.isFavorite(5))
+            assertEquals(-1L, store.lastUsed(42))
+            assertFalse(store.compactIfNeeded())
+        }
+    }
+
+    @Test
+    fun millionRecordsReplayToTheLatestState() {
+        val file = newFile()
+        val distinct = 100_000
+        SwatchStore.open(file).use { store ->
+            for (i in 0 until 1_000_000) store.markUsed(color(i % distinct), i.toLong())
+        }
+
+        SwatchStore.open(file).use { store ->
+            val strip = IntArray(16)
+
+            assertEquals(1_000_000, store.recordCount())
+            assertEquals(16, store.recents(strip))
+            assertEquals(color(distinct - 1), strip[0])
+            for (i in 0 until distinct) {
+                assertEquals(900_000L + i, store.lastUsed(color(i)))
+            }
+        }
+    }
+
+    private fun color(i: Int) = 0xff000000.toInt() or (i * 7919 and 0xffffff)
+}
@@ -0,0 +1,99 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class TonalPaletteGeneratorTest {
+
+    @Test
+    fun oklabMatchesReferenceValues() {
+        val lab = FloatArray(3)
+
+        ColorMath.toOklab(0xffff0000.toInt(), lab)
+        assertEquals(0.62796f, lab[0], 1e-4f)
+        assertEquals(0.22486f, lab[1], 1e-4f)
+        assertEquals(0.12585f, lab[2], 1e-4f)
+
+        ColorMath.toOklab(0xffffffff.toInt(), lab)
+        assertEquals(1f, lab[0], 1e-4f)
+        assertEquals(0f, lab[1], 1e-4f)
+        assertEquals(0f, lab[2], 1e-4f)
+    }
+
+    @Test
+    fun tonesGetLighterAndEndInBlackAndWhite() {
+        val palette = TonalPaletteGenerator(8).generate(0xff1e8cc8.toInt())
+        val lab = FloatArray(3)
+
+        for (role in 0 until TonalPalette.ROLE_COUNT) {
+            var previous = -1f
+            for (tone in TonalPalette.tones()) {
+                ColorMath.toOklab(palette.getColor(role, tone), lab)
+                assertTrue("role $role tone $tone", lab[0] > previous)
+                assertEquals("role $role tone $tone", tone / 100f, lab[0], 0.02f)
+                previous = lab[0]
+            }
+            assertEquals(0xffffffff.toInt(), palette.getColor(role, 100))
+        }
+    }
+
+    @Test
+    fun nearbyColorsShareAMemoizedPalette() {
+        val generator = TonalPaletteGenerator(8)
+
+        val first = generator.generate(0xff1e8cc8.toInt())
+        assertSame(first, generator.generate(0xff1f8dc9.toInt()))
+        assertNotSame(first, generator.generate(0xff248cc8.toInt()))
+    }
+
+    @Test
+    fun leastRecentlyUsedPaletteIsEvicted() {
+        val generator = TonalPaletteGenerator(2)
+
+        val red = generator.generate(0xffff0000.toInt())
+        generator.generate(0xff00ff00.toInt())
+        generator.generate(0xffff0000.toInt())
+        generator.generate(0xff0000ff.toInt())
+
+        assertSame(red, generator.generate(0xffff0000.toInt()))
+    }
+
+    @Test
+    fun generatesFromBackgroundThreads() {
+        val generator = TonalPaletteGenerator(64)
+        val pool = Executors.newFixedThreadPool(4)
+
+        val results = pool.invokeAll(List(4) {
+            Callable { (0 until 2000).map { generator.generate(0xff000000.toInt() or (it * 977)) } }
+        }).map { it.get() }
+        pool.shutdown()
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS))
+
+        for (i in 0 until 2000) {
+            val expected = TonalPaletteGenerator.compute(results[0][i].seedColor)
+            for (thread in results) {
+                assertEquals(expected.getColor(TonalPalette.PRIMARY, 40), thread[i].getColor(TonalPalette.PRIMARY, 40))
+            }
+        }
+    }
+
+    @Test
+    fun repeatedSeedsAreServedFromTheCache() {
+        val generator = TonalPaletteGenerator(4096)
+        val seeds = IntArray(2048) { 0xff000000.toInt() or (it * 8191 and 0xffffff) }
+
+        val first = seeds.map { generator.generate(it) }
+
+        repeat(3) {
+            for ((i, seed) in seeds.withIndex()) {
+                assertSame(first[i], generator.generate(seed))
+            }
+        }
+    }
+}
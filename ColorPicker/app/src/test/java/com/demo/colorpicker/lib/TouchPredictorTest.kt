@@ -0,0 +1,159 @@
+package com.demo.colorpicker.lib
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.PI
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.hypot
+import kotlin.math.min
+import kotlin.math.sin
+import kotlin.random.Random
+
+class TouchPredictorTest {
+
+    @Test
+    fun predictsNothingWithoutSamples() {
+        assertFalse(TouchPredictor().predict(0L, FloatArray(2)))
+    }
+
+    @Test
+    fun extrapolatesConstantVelocity() {
+        val predictor = TouchPredictor()
+        for (t in 0L..40L step 4L) {
+            predictor.addSample(t * 2f, 100f - t, t)
+        }
+
+        val out = FloatArray(2)
+        assertTrue(predictor.predict(56L, out))
+        assertEquals(112f, out[0], 1e-3f)
+        assertEquals(44f, out[1], 1e-3f)
+    }
+
+    @Test
+    fun capsTheLookahead() {
+        val predictor = TouchPredictor()
+        predictor.addSample(0f, 0f, 0L)
+        predictor.addSample(10f, 0f, 10L)
+
+        val out = FloatArray(2)
+        predictor.predict(10L + 1000L, out)
+        assertEquals(10f + TouchPredictor.MAX_LOOKAHEAD_MILLIS, out[0], 1e-3f)
+    }
+
+    @Test
+    fun samplesWithTheSameTimestampKeepTheVelocityFinite() {
+        val predictor = TouchPredictor()
+        predictor.addSample(0f, 0f, 0L)
+        predictor.addSample(4f, 0f, 4L)
+        predictor.addSample(5f, 0f, 4L)
+
+        val out = FloatArray(2)
+        predictor.predict(8L, out)
+        assertTrue(out[0].isFinite() && out[1].isFinite())
+    }
+
+    @Test
+    fun replayedTracesLagLessWithPrediction() {
+        for (trace in traces) {
+            val result = replay(trace, lookaheadMillis = 16)
+            assertTrue("$result", result.predictedError < result.rawError * 0.5)
+        }
+    }
+
+    @Test
+    fun replayedStillFingerStaysPut() {
+        val still = TouchTrace("still") { doubleArrayOf(120.0, 80.0) }
+        val result = replay(still, lookaheadMillis = 16)
+        assertTrue("$result", result.predictedError < 2.0)
+    }
+
+    private class TouchTrace(
+        val name: String,
+        val durationMillis: Double = 600.0,
+        val position: (Double) -> DoubleArray
+    )
+
+    private data class ReplayResult(
+        val name: String,
+        val rawError: Double,
+        val predictedError: Double,
+        val rawLagMillis: Double,
+        val predictedLagMillis: Double
+    ) {
+        override fun toString() = String.format(
+            "%-8s error %5.1f px -> %5.1f px, lag %5.1f ms -> %5.1f ms",
+            name, rawError, predictedError, rawLagMillis, predictedLagMillis
+        )
+    }
+
+    private val traces = listOf(
+        TouchTrace("line") { t -> doubleArrayOf(t, t * 0.5) },
+        TouchTrace("circle", 1000.0) { t ->
+            doubleArrayOf(200 * cos(t / 1000 * 2 * PI), 200 * sin(t / 1000 * 2 * PI))
+        },
+        TouchTrace("ease") { t ->
+            val u = min(1.0, t / 300)
+            doubleArrayOf(400 * u * u * (3 - 2 * u), 0.0)
+        },
+        TouchTrace("zigzag", 1200.0) { t ->
+            val phase = (t % 400) / 400
+            doubleArrayOf(if (phase < 0.5) phase * 600 else (1 - phase) * 600, t * 0.2)
+        }
+    )
+
+    /**
+     * Replays a trace the way it reaches the view: a 240 Hz digitizer with half a pixel of jitter, batched into
+     * 60 Hz frames that show up on screen one frame later. At every frame the tracker drawn at the last real sample
+     * and the predicted one are compared with where the finger really is by the time the frame is displayed.
+     */
+    private fun replay(trace: TouchTrace, lookaheadMillis: Int): ReplayResult {
+        val random = Random(trace.name.hashCode())
+        val predictor = TouchPredictor()
+        val sampleInterval = 1000.0 / 240
+        val frameInterval = 1000.0 / 60
+        val out = FloatArray(2)
+
+        var nextSample = 0.0
+        var lastX = 0f
+        var lastY = 0f
+        var rawError = 0.0
+        var predictedError = 0.0
+        var distance = 0.0
+        var frames = 0
+
+        var frame = frameInterval
+        while (frame < trace.durationMillis) {
+            while (nextSample <= frame) {
+                val p = trace.position(nextSample)
+                lastX = (p[0] + jitter(random)).toFloat()
+                lastY = (p[1] + jitter(random)).toFloat()
+                predictor.addSample(lastX, lastY, floor(nextSample).toLong())
+                nextSample += sampleInterval
+            }
+
+            val shown = trace.position(frame + frameInterval)
+            val before = trace.position(frame + frameInterval - 1)
+            predictor.predict(predictor.lastSampleTime() + lookaheadMillis, out)
+
+            rawError += hypot(shown[0] - lastX, shown[1] - lastY)
+            predictedError += hypot(shown[0] - out[0], shown[1] - out[1])
+            distance += hypot(shown[0] - before[0], shown[1] - before[1])
+            frames++
+            frame += frameInterval
+        }
+
+        val speed = distance / frames
+        return ReplayResult(
+            trace.name,
+            rawError / frames,
+            predictedError / frames,
+            if (speed > 0) rawError / frames / speed else 0.0,
+            if (speed > 0) predictedError / frames / speed else 0.0
+        )
+    }
+
+    private fun jitter(random: Random) = (random.nextDouble() - 0.5)
+}